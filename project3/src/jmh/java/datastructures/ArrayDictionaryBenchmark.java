@@ -0,0 +1,81 @@
+package datastructures;
+
+import datastructures.concrete.dictionaries.ArrayDictionary;
+import datastructures.interfaces.IDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ArrayDictionary, which every operation scans linearly. It's only meant for
+ * small dictionaries (such as the chains inside ChainedHashDictionary), so these sizes
+ * are much smaller than DictionaryBenchmark's.
+ *
+ * Times are per 'size' operations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArrayDictionaryBenchmark {
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private Integer[] keys;
+    private IDictionary<Integer, Integer> filled;
+
+    @Setup
+    public void setup() {
+        this.keys = KeyOrders.generate("random", this.size);
+        this.filled = this.fill();
+    }
+
+    private IDictionary<Integer, Integer> fill() {
+        IDictionary<Integer, Integer> dict = new ArrayDictionary<>();
+        for (int i = 0; i < this.keys.length; i++) {
+            dict.put(this.keys[i], i);
+        }
+        return dict;
+    }
+
+    @Benchmark
+    public IDictionary<Integer, Integer> put() {
+        return this.fill();
+    }
+
+    @Benchmark
+    public void getHit(Blackhole hole) {
+        for (Integer key : this.keys) {
+            hole.consume(this.filled.get(key));
+        }
+    }
+
+    @Benchmark
+    public void containsKeyMiss(Blackhole hole) {
+        for (int i = 0; i < this.size; i++) {
+            hole.consume(this.filled.containsKey(-1 - i));
+        }
+    }
+
+    @Benchmark
+    public int putThenRemoveAll() {
+        IDictionary<Integer, Integer> dict = this.fill();
+        for (Integer key : this.keys) {
+            dict.remove(key);
+        }
+        return dict.size();
+    }
+}
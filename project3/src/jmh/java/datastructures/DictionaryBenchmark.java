@@ -0,0 +1,122 @@
+package datastructures;
+
+import datastructures.concrete.KVPair;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.concrete.dictionaries.OpenAddressingDictionary;
+import datastructures.interfaces.IDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares our two hash-based IDictionary implementations on the operations the
+ * search engine leans on most: looking up words, building a dictionary from
+ * scratch, removing everything, and iterating over every entry.
+ *
+ * Keys are strings shaped like the words we index, so hashing and equality cost
+ * roughly what they do for real. 'random' keys hash all over the place; 'sequential'
+ * keys ("key0", "key1", ...) have hash codes that are close together, which is what
+ * makes open addressing cluster.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictionaryBenchmark {
+    @Param({"chained", "open-addressing"})
+    public String implementation;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"random", "sequential"})
+    public String keyShape;
+
+    private String[] keys;
+    private String[] missingKeys;
+    private IDictionary<String, Integer> filled;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(373);
+        this.keys = new String[this.size];
+        this.missingKeys = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            if (this.keyShape.equals("sequential")) {
+                this.keys[i] = "key" + i;
+                this.missingKeys[i] = "key" + (this.size + i);
+            } else {
+                this.keys[i] = "word" + rand.nextInt() + "-" + i;
+                this.missingKeys[i] = "absent" + rand.nextInt() + "-" + i;
+            }
+        }
+        this.filled = this.fill();
+    }
+
+    private IDictionary<String, Integer> newDictionary() {
+        if (this.implementation.equals("chained")) {
+            return new ChainedHashDictionary<>();
+        } else {
+            return new OpenAddressingDictionary<>();
+        }
+    }
+
+    private IDictionary<String, Integer> fill() {
+        IDictionary<String, Integer> dict = this.newDictionary();
+        for (int i = 0; i < this.keys.length; i++) {
+            dict.put(this.keys[i], i);
+        }
+        return dict;
+    }
+
+    @Benchmark
+    public IDictionary<String, Integer> put() {
+        return this.fill();
+    }
+
+    @Benchmark
+    public void getHit(Blackhole hole) {
+        for (String key : this.keys) {
+            hole.consume(this.filled.get(key));
+        }
+    }
+
+    @Benchmark
+    public void containsKeyMiss(Blackhole hole) {
+        for (String key : this.missingKeys) {
+            hole.consume(this.filled.containsKey(key));
+        }
+    }
+
+    @Benchmark
+    public int putThenRemoveAll() {
+        IDictionary<String, Integer> dict = this.fill();
+        for (String key : this.keys) {
+            dict.remove(key);
+        }
+        return dict.size();
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (KVPair<String, Integer> pair : this.filled) {
+            sum += pair.getValue();
+        }
+        return sum;
+    }
+}
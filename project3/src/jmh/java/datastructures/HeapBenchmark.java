@@ -0,0 +1,83 @@
+package datastructures;
+
+import datastructures.concrete.ArrayHeap;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.IPriorityQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ArrayHeap on inputs arriving in each order KeyOrders generates. Ascending
+ * input never sifts up and descending input always sifts all the way to the root, so
+ * the orders bracket how much work insert(...) can do.
+ *
+ * Times are per 'size' items going through the heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeapBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"random", "ascending", "descending", "few-distinct"})
+    public String order;
+
+    private Integer[] items;
+    private IList<Integer> itemList;
+
+    @Setup
+    public void setup() {
+        this.items = KeyOrders.generate(this.order, this.size);
+        this.itemList = new DoubleLinkedList<>();
+        for (Integer item : this.items) {
+            this.itemList.add(item);
+        }
+    }
+
+    @Benchmark
+    public IPriorityQueue<Integer> insert() {
+        IPriorityQueue<Integer> heap = new ArrayHeap<>();
+        for (Integer item : this.items) {
+            heap.insert(item);
+        }
+        return heap;
+    }
+
+    @Benchmark
+    public long insertThenRemoveAll() {
+        IPriorityQueue<Integer> heap = new ArrayHeap<>();
+        for (Integer item : this.items) {
+            heap.insert(item);
+        }
+        return drain(heap);
+    }
+
+    @Benchmark
+    public long buildThenRemoveAll() {
+        return drain(new ArrayHeap<>(this.itemList));
+    }
+
+    private static long drain(IPriorityQueue<Integer> heap) {
+        long sum = 0;
+        while (!heap.isEmpty()) {
+            sum += heap.removeMin();
+        }
+        return sum;
+    }
+}
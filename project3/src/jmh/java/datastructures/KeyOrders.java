@@ -0,0 +1,46 @@
+package datastructures;
+
+import java.util.Random;
+
+/**
+ * Generates the keys our benchmarks insert, in each of the orders they can be
+ * parameterized by. Heaps and sorting are sensitive to the order their input arrives
+ * in, so we measure them on more than just random input:
+ *
+ * - "random": distinct keys in a random order
+ * - "ascending": distinct keys, smallest first
+ * - "descending": distinct keys, biggest first
+ * - "few-distinct": random keys drawn from only 16 distinct values, so nearly every
+ *   comparison is a tie
+ */
+public class KeyOrders {
+    public static Integer[] generate(String order, int size) {
+        Random rand = new Random(373);
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            switch (order) {
+                case "random":
+                case "ascending":
+                    keys[i] = i;
+                    break;
+                case "descending":
+                    keys[i] = size - i;
+                    break;
+                case "few-distinct":
+                    keys[i] = rand.nextInt(16);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown key order '" + order + "'");
+            }
+        }
+        if (order.equals("random")) {
+            for (int i = size - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                Integer temp = keys[i];
+                keys[i] = keys[j];
+                keys[j] = temp;
+            }
+        }
+        return keys;
+    }
+}
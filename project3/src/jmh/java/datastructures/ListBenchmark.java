@@ -0,0 +1,112 @@
+package datastructures;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures DoubleLinkedList on the operations that should be fast: adding and
+ * removing at either end, indexing near either end, and iterating. The one linear
+ * operation measured is contains(...) on a missing item, which has to visit every node.
+ *
+ * Every benchmark works on a whole list, so times are per 'size' operations (except
+ * for containsMiss).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListBenchmark {
+    // How many indices from each end getNearEnds() looks up.
+    private static final int END_DISTANCE = 32;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Integer[] items;
+    private IList<Integer> filled;
+
+    @Setup
+    public void setup() {
+        this.items = KeyOrders.generate("random", this.size);
+        this.filled = this.fill();
+    }
+
+    private IList<Integer> fill() {
+        IList<Integer> list = new DoubleLinkedList<>();
+        for (Integer item : this.items) {
+            list.add(item);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public IList<Integer> add() {
+        return this.fill();
+    }
+
+    @Benchmark
+    public IList<Integer> insertFront() {
+        IList<Integer> list = new DoubleLinkedList<>();
+        for (Integer item : this.items) {
+            list.insert(0, item);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public int addThenRemoveBack() {
+        IList<Integer> list = this.fill();
+        while (list.size() > 0) {
+            list.remove();
+        }
+        return list.size();
+    }
+
+    @Benchmark
+    public int addThenDeleteFront() {
+        IList<Integer> list = this.fill();
+        while (list.size() > 0) {
+            list.delete(0);
+        }
+        return list.size();
+    }
+
+    @Benchmark
+    public void getNearEnds(Blackhole hole) {
+        int distance = Math.min(END_DISTANCE, this.size);
+        for (int i = 0; i < distance; i++) {
+            hole.consume(this.filled.get(i));
+            hole.consume(this.filled.get(this.size - 1 - i));
+        }
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (Integer item : this.filled) {
+            sum += item;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public boolean containsMiss() {
+        return this.filled.contains(-1);
+    }
+}
@@ -0,0 +1,95 @@
+package datastructures;
+
+import datastructures.concrete.ChainedHashSet;
+import datastructures.interfaces.ISet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ChainedHashSet on word-shaped strings, the way the search engine uses it
+ * to collect distinct words and URIs. Times are per 'size' operations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private String[] items;
+    private String[] missingItems;
+    private ISet<String> filled;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(373);
+        this.items = new String[this.size];
+        this.missingItems = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.items[i] = "word" + rand.nextInt() + "-" + i;
+            this.missingItems[i] = "absent" + rand.nextInt() + "-" + i;
+        }
+        this.filled = this.fill();
+    }
+
+    private ISet<String> fill() {
+        ISet<String> set = new ChainedHashSet<>();
+        for (String item : this.items) {
+            set.add(item);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public ISet<String> add() {
+        return this.fill();
+    }
+
+    @Benchmark
+    public void containsHit(Blackhole hole) {
+        for (String item : this.items) {
+            hole.consume(this.filled.contains(item));
+        }
+    }
+
+    @Benchmark
+    public void containsMiss(Blackhole hole) {
+        for (String item : this.missingItems) {
+            hole.consume(this.filled.contains(item));
+        }
+    }
+
+    @Benchmark
+    public int addThenRemoveAll() {
+        ISet<String> set = this.fill();
+        for (String item : this.items) {
+            set.remove(item);
+        }
+        return set.size();
+    }
+
+    @Benchmark
+    public int iterate() {
+        int total = 0;
+        for (String item : this.filled) {
+            total += item.length();
+        }
+        return total;
+    }
+}
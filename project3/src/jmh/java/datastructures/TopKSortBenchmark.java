@@ -0,0 +1,54 @@
+package datastructures;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.Searcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Searcher.topKSort(...) picking the k biggest of 'size' items. Small k is
+ * what the search engine asks for; k = size takes the path that sorts everything.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopKSortBenchmark {
+    @Param({"100000"})
+    public int size;
+
+    @Param({"10", "1000", "100000"})
+    public int k;
+
+    @Param({"random", "ascending", "descending", "few-distinct"})
+    public String order;
+
+    private IList<Integer> input;
+
+    @Setup
+    public void setup() {
+        this.input = new DoubleLinkedList<>();
+        for (Integer item : KeyOrders.generate(this.order, this.size)) {
+            this.input.add(item);
+        }
+    }
+
+    @Benchmark
+    public IList<Integer> topKSort() {
+        return Searcher.topKSort(this.k, this.input);
+    }
+}
@@ -0,0 +1,214 @@
+package misc;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Compares two sets of JMH results written with '-rf csv' (see the jmhBaseline and
+ * jmhCompare tasks in build.gradle) and reports every benchmark that got slower.
+ *
+ * Usage: JmhCompare baseline.csv results.csv [threshold]
+ *
+ * Only results measured per operation (time/op, or B/op from '-prof gc') are compared,
+ * since for those a higher score is always worse. A result counts as a regression if
+ * it's more than 'threshold' (by default 0.1, so 10%) worse than the baseline, AND its
+ * error interval doesn't overlap the baseline's, so ordinary noise doesn't fail the
+ * build. Allocation results that differ by less than one byte per operation are never
+ * regressions either: JMH reports allocation-free benchmarks as allocating a tiny
+ * fraction of a byte, which makes the relative change meaningless.
+ *
+ * Results that aren't clearly better or worse, but whose error (in either file) is
+ * bigger than 'threshold' times their score, are reported as NOISY rather than OK:
+ * their error intervals are so wide that a slowdown of 'threshold' would still overlap,
+ * so we can't tell whether they regressed. If many results are noisy, record both
+ * files with more forks and iterations (say, '-f 3 -i 10'), on a machine that isn't
+ * busy doing anything else.
+ *
+ * Exits with status 1 if anything regressed.
+ */
+public class JmhCompare {
+    private static final double DEFAULT_THRESHOLD = 0.1;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: JmhCompare baseline.csv results.csv [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        IDictionary<String, Result> baseline = new ChainedHashDictionary<>();
+        for (Result result : read(args[0])) {
+            baseline.put(result.key, result);
+        }
+
+        int regressions = 0;
+        int noisy = 0;
+        int compared = 0;
+        for (Result result : read(args[1])) {
+            if (!result.unit.endsWith("/op")) {
+                continue;
+            }
+            if (!baseline.containsKey(result.key)) {
+                System.out.println("NEW        " + result.key + ": " + result.describe());
+                continue;
+            }
+            Result old = baseline.get(result.key);
+            if (!old.unit.equals(result.unit)) {
+                System.out.println("SKIPPED    " + result.key + ": unit changed from " + old.unit);
+                continue;
+            }
+            compared++;
+            double change = (result.score - old.score) / Math.max(old.score, Double.MIN_VALUE);
+            boolean negligible = result.unit.equals("B/op") && Math.abs(result.score - old.score) < 1.0;
+            if (negligible) {
+                change = 0.0;
+            }
+            String line = String.format(Locale.ROOT, "%s: %s -> %s (%+.1f%%)",
+                    result.key, old.describe(), result.describe(), change * 100);
+            if (change > threshold && result.low() > old.high()) {
+                regressions++;
+                System.out.println("REGRESSION " + line);
+            } else if (change < -threshold && result.high() < old.low()) {
+                System.out.println("IMPROVED   " + line);
+            } else if (!negligible && (old.relativeError() > threshold || result.relativeError() > threshold)) {
+                noisy++;
+                System.out.println("NOISY      " + line);
+            } else {
+                System.out.println("OK         " + line);
+            }
+        }
+
+        System.out.println();
+        System.out.println("Compared " + compared + " results: " + regressions + " regression(s)"
+                + String.format(Locale.ROOT, " beyond %.0f%%", threshold * 100)
+                + ", " + noisy + " too noisy to tell");
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads every row of a JMH CSV file. Rows are identified by the benchmark name, mode,
+     * thread count and every parameter, since each combination is measured separately.
+     *
+     * JMH writes a column for every parameter of every benchmark it ran, and leaves it
+     * empty for benchmarks without that parameter. We skip empty parameters, so rows
+     * match up even if the two files were written by runs of different benchmarks.
+     */
+    private static IList<Result> read(String path) throws IOException {
+        IList<Result> results = new DoubleLinkedList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            String[] header = splitRow(reader.readLine());
+            int unitColumn = indexOf(header, "Unit");
+            String line = reader.readLine();
+            while (line != null) {
+                if (!line.trim().isEmpty()) {
+                    String[] row = splitRow(line);
+                    StringBuilder key = new StringBuilder(row[0]).append(" [").append(row[1])
+                            .append(", threads=").append(row[2]);
+                    for (int i = unitColumn + 1; i < header.length && i < row.length; i++) {
+                        if (!row[i].isEmpty()) {
+                            key.append(", ").append(header[i].replace("Param: ", "")).append('=').append(row[i]);
+                        }
+                    }
+                    key.append(']');
+                    results.add(new Result(key.toString(), parseNumber(row[4]), parseNumber(row[5]), row[unitColumn]));
+                }
+                line = reader.readLine();
+            }
+        }
+        return results;
+    }
+
+    private static int indexOf(String[] header, String column) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(column)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Not a JMH CSV file: there is no '" + column + "' column");
+    }
+
+    /**
+     * Splits a CSV row into its fields, removing the quotes JMH puts around each one.
+     */
+    private static String[] splitRow(String line) {
+        if (line == null) {
+            throw new IllegalArgumentException("Not a JMH CSV file: it is empty");
+        }
+        IList<String> fields = new DoubleLinkedList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+
+        String[] out = new String[fields.size()];
+        int i = 0;
+        for (String value : fields) {
+            out[i] = value;
+            i++;
+        }
+        return out;
+    }
+
+    /**
+     * Parses a score or error. JMH writes NaN as the error when there were too few
+     * samples to estimate one, and formats numbers using the default locale, which may
+     * use a comma as the decimal point.
+     */
+    private static double parseNumber(String text) {
+        if (text.isEmpty() || text.equals("NaN")) {
+            return 0.0;
+        }
+        return Double.parseDouble(text.replace(',', '.'));
+    }
+
+    private static class Result {
+        private final String key;
+        private final double score;
+        private final double error;
+        private final String unit;
+
+        public Result(String key, double score, double error, String unit) {
+            this.key = key;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        public double low() {
+            return this.score - this.error;
+        }
+
+        public double high() {
+            return this.score + this.error;
+        }
+
+        public double relativeError() {
+            return this.error / Math.max(this.score, Double.MIN_VALUE);
+        }
+
+        public String describe() {
+            return String.format(Locale.ROOT, "%.3f +/- %.3f %s", this.score, this.error, this.unit);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import search.analyzers.PostingList;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast a compressed PostingList can be read, both scanning every
+ * posting and skipping ahead to a sparse set of documents (the way a pruning or
+ * conjunctive query does), against the uncompressed layout it replaced: a sorted
+ * int array of document ids next to a double array of TF scores.
+ *
+ * Times are per posting read for the scans, and per target for the skips. The
+ * memory each layout takes per posting is printed once, while setting up:
+ *
+ *     gradle jmh -PjmhArgs="PostingListBenchmark"
+ *
+ * 'averageGap' is the average distance between consecutive document ids: 1 is a
+ * word in every document, and larger gaps are rarer words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostingListBenchmark {
+    private static final int NUM_POSTINGS = 1000000;
+    private static final int NUM_TARGETS = 10000;
+
+    @Param({"1", "16", "512"})
+    public int averageGap;
+
+    private PostingList list;
+    private int[] documentIds;
+    private double[] termFrequencies;
+    private int[] targets;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(373);
+        this.list = new PostingList();
+        this.documentIds = new int[NUM_POSTINGS];
+        this.termFrequencies = new double[NUM_POSTINGS];
+        int documentId = 0;
+        for (int i = 0; i < NUM_POSTINGS; i++) {
+            documentId += this.averageGap == 1 ? 1 : 1 + rand.nextInt(2 * this.averageGap - 1);
+            // Most words appear once or twice in a document, a few appear many times.
+            int count = 1 + (int) Math.exp(rand.nextDouble() * Math.log(50));
+            this.list.add(documentId, count);
+            this.documentIds[i] = documentId;
+            this.termFrequencies[i] = count / 300.0;
+        }
+
+        this.targets = new int[NUM_TARGETS];
+        for (int i = 0; i < NUM_TARGETS; i++) {
+            this.targets[i] = rand.nextInt(documentId + 1);
+        }
+        Arrays.sort(this.targets);
+
+        System.out.printf(
+                "%nBytes per posting: compressed %.2f, arrays %.2f%n",
+                (double) this.list.encodedSize() / NUM_POSTINGS,
+                (double) (Integer.BYTES + Double.BYTES));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POSTINGS)
+    public long scanCompressed() {
+        long total = 0;
+        PostingList.Cursor cursor = this.list.cursor();
+        while (cursor.documentId() != Integer.MAX_VALUE) {
+            total += cursor.documentId() + cursor.count();
+            cursor.next();
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POSTINGS)
+    public double scanArrays() {
+        double total = 0;
+        for (int i = 0; i < this.documentIds.length; i++) {
+            total += this.documentIds[i] + this.termFrequencies[i];
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_TARGETS)
+    public long skipCompressed() {
+        long total = 0;
+        PostingList.Cursor cursor = this.list.cursor();
+        for (int target : this.targets) {
+            cursor.seek(target);
+            total += cursor.documentId();
+        }
+        return total;
+    }
+
+    /**
+     * Skips through the arrays the way the uncompressed list did: galloping forwards
+     * from the current position, then binary searching.
+     */
+    @Benchmark
+    @OperationsPerInvocation(NUM_TARGETS)
+    public long skipArrays() {
+        long total = 0;
+        int position = 0;
+        int size = this.documentIds.length;
+        for (int target : this.targets) {
+            int low = position;
+            int step = 1;
+            while (low + step < size && this.documentIds[low + step] < target) {
+                low += step;
+                step *= 2;
+            }
+            int index = Arrays.binarySearch(this.documentIds, low, Math.min(low + step + 1, size), target);
+            position = index >= 0 ? index : -(index + 1);
+            total += position < size ? this.documentIds[position] : Integer.MAX_VALUE;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,166 @@
+package search;
+
+import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.KVPair;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import search.analyzers.TfIdfAnalyzer;
+import search.models.DocumentIdRegistry;
+import search.models.Webpage;
+
+import java.net.URI;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to build the TF-IDF index for a corpus, comparing
+ * TfIdfAnalyzer against the original dictionary-based construction (reproduced in
+ * LegacyTfIdfIndex below, since it no longer exists in 'main').
+ *
+ * To see how much each one allocates as well, run with the GC profiler:
+ *
+ *     gradle jmh -PjmhArgs="TfIdfBuildBenchmark -prof gc"
+ *
+ * Words are drawn from a Zipf-like distribution, so a few words appear in almost
+ * every page and most appear in only a handful, just like real text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TfIdfBuildBenchmark {
+    private static final int VOCABULARY_SIZE = 20000;
+    private static final int WORDS_PER_PAGE = 300;
+
+    @Param({"1000", "10000"})
+    public int numPages;
+
+    private ISet<Webpage> pages;
+    private DocumentIdRegistry registry;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(373);
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = "word" + i;
+        }
+
+        this.pages = new ChainedHashSet<>();
+        for (int i = 0; i < this.numPages; i++) {
+            IList<String> words = new DoubleLinkedList<>();
+            for (int j = 0; j < WORDS_PER_PAGE; j++) {
+                // Picking uniformly on a log scale gives roughly a Zipf distribution.
+                int rank = (int) Math.exp(rand.nextDouble() * Math.log(VOCABULARY_SIZE));
+                words.add(vocabulary[rank - 1]);
+            }
+            this.pages.add(new Webpage(
+                    URI.create("http://example.com/page-" + i + ".html"),
+                    new DoubleLinkedList<>(),
+                    words,
+                    "Page " + i,
+                    "Blurb for page " + i));
+        }
+        this.registry = DocumentIdRegistry.of(this.pages);
+    }
+
+    @Benchmark
+    public TfIdfAnalyzer singlePass() {
+        return new TfIdfAnalyzer(this.pages, this.registry);
+    }
+
+    @Benchmark
+    public LegacyTfIdfIndex legacy() {
+        return new LegacyTfIdfIndex(this.pages);
+    }
+
+    /**
+     * The original TfIdfAnalyzer construction: IDF scores are updated one document at
+     * a time through a Math.exp/Math.log round trip, TF scores are accumulated with
+     * containsKey/get/put, and then every TF dictionary is copied into a TF-IDF one.
+     */
+    public static class LegacyTfIdfIndex {
+        private IDictionary<String, Double> idfScores;
+        private IDictionary<URI, Double> normDocumentVector;
+        private IDictionary<URI, IDictionary<String, Double>> documentTfIdfVectors;
+
+        public LegacyTfIdfIndex(ISet<Webpage> webpages) {
+            this.normDocumentVector = new ChainedHashDictionary<>();
+            this.idfScores = computeIdfScores(webpages);
+            this.documentTfIdfVectors = this.computeAllDocumentTfIdfVectors(webpages);
+            for (KVPair<URI, IDictionary<String, Double>> pair : this.documentTfIdfVectors) {
+                this.normDocumentVector.put(pair.getKey(), norm(pair.getValue()));
+            }
+        }
+
+        private static IDictionary<String, Double> computeIdfScores(ISet<Webpage> pages) {
+            IDictionary<String, Double> idf = new ChainedHashDictionary<>();
+            int docNum = pages.size();
+            for (Webpage page : pages) {
+                ISet<String> wordSet = new ChainedHashSet<>();
+                for (String word : page.getWords()) {
+                    wordSet.add(word);
+                }
+                for (String word : wordSet) {
+                    if (idf.containsKey(word)) {
+                        double denominator = (double) docNum / Math.exp(idf.get(word)) + 1.0;
+                        idf.put(word, Math.log((double) docNum / denominator));
+                    } else {
+                        idf.put(word, Math.log((double) docNum));
+                    }
+                }
+            }
+            return idf;
+        }
+
+        private static IDictionary<String, Double> computeTfScores(IList<String> words) {
+            IDictionary<String, Double> result = new ChainedHashDictionary<>();
+            for (String word : words) {
+                if (result.containsKey(word)) {
+                    result.put(word, result.get(word) + 1.0 / words.size());
+                } else {
+                    result.put(word, 1.0 / words.size());
+                }
+            }
+            return result;
+        }
+
+        private IDictionary<URI, IDictionary<String, Double>> computeAllDocumentTfIdfVectors(ISet<Webpage> pages) {
+            IDictionary<URI, IDictionary<String, Double>> vectors = new ChainedHashDictionary<>();
+            for (Webpage page : pages) {
+                IDictionary<String, Double> tfScores = computeTfScores(page.getWords());
+                IDictionary<String, Double> vector = new ChainedHashDictionary<>();
+                for (KVPair<String, Double> pair : tfScores) {
+                    vector.put(pair.getKey(), pair.getValue() * this.idfScores.get(pair.getKey()));
+                }
+                vectors.put(page.getUri(), vector);
+            }
+            return vectors;
+        }
+
+        private static double norm(IDictionary<String, Double> vector) {
+            double output = 0.0;
+            for (KVPair<String, Double> pair : vector) {
+                double score = pair.getValue();
+                output += score * score;
+            }
+            return Math.sqrt(output);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package search.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Writes a synthetic corpus into the 'data' folder, so we can measure the search engine
+ * without scraping a real one first (see SearchBenchmark, and 'gradle generateCorpus').
+ *
+ * Every page is written in the same format the scraper uses (a METADATA comment giving
+ * the page's URI, followed by its HTML), so it's loaded exactly like a real page. The
+ * corpus is shaped like real text rather than uniformly random:
+ *
+ * - Words are drawn from a made-up vocabulary with Zipfian frequencies, so a few words
+ *   appear on nearly every page and most appear on only a handful.
+ * - The number of links on each page follows a power law (most pages have a few, some
+ *   have hundreds), and so does the number of links pointing at each page.
+ *
+ * Alongside the pages, we write a log of queries (queries.txt, one per line) for
+ * SearchBenchmark to replay. Popular queries repeat, like they do in a real log.
+ *
+ * Options (all optional), given as '--name=value':
+ *
+ * - folder: the folder inside 'data' to write to (default 'synthetic'). It must not
+ *   exist yet, or be empty.
+ * - pages: how many pages to write (default 10000)
+ * - vocabulary: how many distinct words to use (default 50000)
+ * - word-exponent: the Zipf exponent of word frequencies (default 1.0)
+ * - words-per-page: the average number of words on a page (default 300)
+ * - min-links, max-links: bounds on the number of links on a page (default 2 and 300)
+ * - link-exponent: the power law exponent of the number of links on a page; smaller
+ *   means more pages with many links (default 2.1)
+ * - queries: how many queries to write to the query log (default 10000)
+ * - distinct-queries: how many different queries the log is drawn from (default 2000)
+ * - seed: the random seed (default 373), so the same options give the same corpus
+ */
+public class CorpusGenerator {
+    public static final String QUERY_LOG_FILE_NAME = "queries.txt";
+
+    private static final String SITE = "http://synthetic.example/";
+
+    // Words are spelled using these syllables, which keeps them pronounceable enough
+    // to read when debugging, and makes sure they survive WordTokenizer unchanged.
+    private static final String[] SYLLABLES = {
+        "ba", "ce", "di", "fo", "gu", "ha", "ke", "li", "mo", "nu",
+        "pa", "re", "si", "to", "vu", "wa", "xe", "yi", "zo", "ju",
+    };
+
+    private static final int WORDS_PER_PARAGRAPH = 60;
+
+    private final int numPages;
+    private final String[] vocabulary;
+    private final Zipf words;
+    private final int wordsPerPage;
+    private final int minLinks;
+    private final int maxLinks;
+    private final double linkExponent;
+    private final int numQueries;
+    private final int numDistinctQueries;
+    private final Random rand;
+
+    public CorpusGenerator(Options options) {
+        this.numPages = options.getInt("pages", 10000);
+        this.vocabulary = makeVocabulary(options.getInt("vocabulary", 50000));
+        this.words = new Zipf(this.vocabulary.length, options.getDouble("word-exponent", 1.0));
+        this.wordsPerPage = options.getInt("words-per-page", 300);
+        this.minLinks = options.getInt("min-links", 2);
+        this.maxLinks = options.getInt("max-links", 300);
+        this.linkExponent = options.getDouble("link-exponent", 2.1);
+        this.numQueries = options.getInt("queries", 10000);
+        this.numDistinctQueries = options.getInt("distinct-queries", 2000);
+        this.rand = new Random(options.getInt("seed", 373));
+        if (this.numPages <= 0 || this.wordsPerPage <= 0 || this.minLinks < 0
+                || this.maxLinks < this.minLinks || this.linkExponent <= 1.0) {
+            throw new IllegalArgumentException("Invalid corpus options");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        Path folder = Paths.get("data", options.get("folder", "synthetic"));
+        if (Files.exists(folder)) {
+            try (Stream<Path> contents = Files.list(folder)) {
+                if (contents.findAny().isPresent()) {
+                    System.err.println("'" + folder + "' already exists: delete it first to generate a new corpus");
+                    System.exit(1);
+                }
+            }
+        }
+        Files.createDirectories(folder);
+
+        long start = System.nanoTime();
+        CorpusGenerator generator = new CorpusGenerator(options);
+        generator.writePages(folder);
+        generator.writeQueryLog(folder.resolve(QUERY_LOG_FILE_NAME));
+        System.out.println(String.format("Wrote %d pages and %d queries to '%s' (%.1f sec)",
+                generator.numPages, generator.numQueries, folder, (System.nanoTime() - start) / 1e9));
+    }
+
+    /**
+     * Returns the given number of distinct words. Word 'i' spells out 'i' in base
+     * SYLLABLES.length, using at least two syllables.
+     */
+    private static String[] makeVocabulary(int size) {
+        String[] vocabulary = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int rest = i;
+            do {
+                word.insert(0, SYLLABLES[rest % SYLLABLES.length]);
+                rest /= SYLLABLES.length;
+            } while (rest > 0);
+            if (i < SYLLABLES.length) {
+                word.insert(0, SYLLABLES[0]);
+            }
+            vocabulary[i] = word.toString();
+        }
+        return vocabulary;
+    }
+
+    private void writePages(Path folder) throws IOException {
+        // Which pages are the most linked to is unrelated to their numbering.
+        int[] pagesByPopularity = new int[this.numPages];
+        for (int i = 0; i < this.numPages; i++) {
+            pagesByPopularity[i] = i;
+        }
+        for (int i = this.numPages - 1; i > 0; i--) {
+            int j = this.rand.nextInt(i + 1);
+            int temp = pagesByPopularity[i];
+            pagesByPopularity[i] = pagesByPopularity[j];
+            pagesByPopularity[j] = temp;
+        }
+        Zipf linkTargets = new Zipf(this.numPages, 1.0);
+
+        for (int page = 0; page < this.numPages; page++) {
+            Path file = folder.resolve(pageName(page));
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                this.writePage(writer, page, pagesByPopularity, linkTargets);
+            }
+        }
+    }
+
+    private void writePage(Writer writer, int page, int[] pagesByPopularity, Zipf linkTargets)
+            throws IOException {
+        writer.write("<!-- METADATA\n");
+        writer.write("uri: " + SITE + pageName(page) + "\n");
+        writer.write("local: false\n");
+        writer.write("-->\n");
+
+        String title = this.randomWords(2 + this.rand.nextInt(3));
+        writer.write("<html><head><title>" + title + "</title></head><body>\n");
+        writer.write("<h1>" + title + "</h1>\n");
+
+        int remaining = this.wordsPerPage / 2 + this.rand.nextInt(this.wordsPerPage + 1);
+        while (remaining > 0) {
+            int count = Math.min(remaining, WORDS_PER_PARAGRAPH);
+            writer.write("<p>" + this.randomWords(count) + "</p>\n");
+            remaining -= count;
+        }
+
+        int numLinks = Math.min(this.linkCount(), this.numPages - 1);
+        writer.write("<ul>\n");
+        for (int i = 0; i < numLinks; i++) {
+            int target = pagesByPopularity[linkTargets.next(this.rand)];
+            if (target != page) {
+                writer.write("<li><a href=\"" + pageName(target) + "\">" + this.randomWords(1) + "</a></li>\n");
+            }
+        }
+        writer.write("</ul>\n</body></html>\n");
+    }
+
+    /**
+     * Returns the number of links to put on a page, drawn from a power law (a Pareto
+     * distribution, rounded down) starting at minLinks, and capped at maxLinks.
+     */
+    private int linkCount() {
+        double draw = this.minLinks / Math.pow(1.0 - this.rand.nextDouble(), 1.0 / (this.linkExponent - 1.0));
+        return (int) Math.min(draw, this.maxLinks);
+    }
+
+    private void writeQueryLog(Path file) throws IOException {
+        String[] distinctQueries = new String[this.numDistinctQueries];
+        for (int i = 0; i < distinctQueries.length; i++) {
+            distinctQueries[i] = this.randomWords(1 + this.rand.nextInt(3));
+        }
+        Zipf queries = new Zipf(distinctQueries.length, 1.0);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < this.numQueries; i++) {
+                writer.write(distinctQueries[queries.next(this.rand)]);
+                writer.newLine();
+            }
+        }
+    }
+
+    private String randomWords(int count) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.append(' ');
+            }
+            out.append(this.vocabulary[this.words.next(this.rand)]);
+        }
+        return out.toString();
+    }
+
+    private static String pageName(int page) {
+        return "page-" + page + ".html";
+    }
+}
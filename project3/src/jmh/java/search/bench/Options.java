@@ -0,0 +1,37 @@
+package search.bench;
+
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+
+/**
+ * Command line options of the form '--name=value', for the benchmarking tools.
+ */
+public class Options {
+    private final IDictionary<String, String> values;
+
+    /**
+     * @throws IllegalArgumentException  if any argument isn't of the form '--name=value'
+     */
+    public Options(String[] args) {
+        this.values = new ChainedHashDictionary<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected an option of the form '--name=value', got '" + arg + "'");
+            }
+            this.values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+    }
+
+    public String get(String name, String defaultValue) {
+        return this.values.containsKey(name) ? this.values.get(name) : defaultValue;
+    }
+
+    public int getInt(String name, int defaultValue) {
+        return this.values.containsKey(name) ? Integer.parseInt(this.values.get(name)) : defaultValue;
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        return this.values.containsKey(name) ? Double.parseDouble(this.values.get(name)) : defaultValue;
+    }
+}
@@ -0,0 +1,180 @@
+package search.bench;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import search.SearchEngine;
+import search.misc.LatencyHistogram;
+import search.misc.Metrics;
+import search.misc.WordTokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the search engine end to end on a corpus in the 'data' folder (usually one
+ * written by CorpusGenerator): how long building the index takes, how much heap the
+ * finished index occupies, and how fast it answers the queries in a query log.
+ *
+ * Unlike the JMH benchmarks, this measures each thing once (or once per pass), so run
+ * it a few times before trusting small differences. Build times include parsing every
+ * page the first time a corpus is used; after that, pages are read from the corpus
+ * cache, so run twice to measure just the indexing. Run it with 'gradle searchBenchmark'.
+ *
+ * Options (all optional), given as '--name=value':
+ *
+ * - folder: the folder inside 'data' to index (default 'synthetic')
+ * - queries: the query log to replay, one query per line (default: the queries.txt
+ *   CorpusGenerator writes into the folder)
+ * - k: how many results to ask for per query (default 10)
+ * - threads: how many threads replay the log at once (default 1)
+ * - warmup-passes: passes over the log to make before measuring (default 1)
+ * - passes: passes over the log to measure (default 3)
+ * - result-cache: how many results SearchEngine caches (default
+ *   SearchEngine.RESULT_CACHE_SIZE). Set it to 0 to measure every query from scratch.
+ */
+public class SearchBenchmark {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = new Options(args);
+        String folder = options.get("folder", "synthetic");
+        Path queryLog = Paths.get(options.get("queries",
+                Paths.get("data", folder, CorpusGenerator.QUERY_LOG_FILE_NAME).toString()));
+        int k = options.getInt("k", 10);
+        int threads = options.getInt("threads", 1);
+        int warmupPasses = options.getInt("warmup-passes", 1);
+        int passes = options.getInt("passes", 3);
+        SearchEngine.RESULT_CACHE_SIZE = options.getInt("result-cache", SearchEngine.RESULT_CACHE_SIZE);
+
+        IList<IList<String>> queries = readQueries(queryLog);
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        SearchEngine engine = new SearchEngine(folder);
+        long buildNanos = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+
+        Metrics metrics = engine.getMetrics();
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT,
+                "Index build:      %.3f sec (load %.3f, tf-idf %.3f, page rank %.3f)",
+                buildNanos / 1e9,
+                stageSeconds(metrics, "search_load_seconds"),
+                stageSeconds(metrics, "search_tfidf_build_seconds"),
+                stageSeconds(metrics, "search_pagerank_seconds")));
+        System.out.println(String.format(Locale.ROOT, "Index heap:       %.1f MB (approximate)",
+                (heapAfter - heapBefore) / (1024.0 * 1024.0)));
+
+        for (int pass = 0; pass < warmupPasses; pass++) {
+            replay(engine, queries, k, threads, new LatencyHistogram());
+        }
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            replay(engine, queries, k, threads, latencies);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format(Locale.ROOT, "Queries:          %d (%d per pass, k = %d, %d thread(s))",
+                latencies.count(), queries.size(), k, threads));
+        System.out.println(String.format(Locale.ROOT, "Throughput:       %.1f queries/sec",
+                latencies.count() / elapsedSeconds));
+        System.out.println(String.format(Locale.ROOT, "Latency (ms):     p50 %.3f, p90 %.3f, p99 %.3f, max %.3f",
+                latencies.percentile(0.5), latencies.percentile(0.9),
+                latencies.percentile(0.99), latencies.percentile(1.0)));
+        System.out.println(String.format(Locale.ROOT, "Result cache:     %d hits, %d misses (capacity %d)",
+                engine.getResultCache().getHits(), engine.getResultCache().getMisses(),
+                engine.getResultCache().capacity()));
+    }
+
+    private static IList<IList<String>> readQueries(Path queryLog) throws IOException {
+        IList<IList<String>> queries = new DoubleLinkedList<>();
+        try (BufferedReader reader = Files.newBufferedReader(queryLog, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                IList<String> query = WordTokenizer.extract(line);
+                if (!query.isEmpty()) {
+                    queries.add(query);
+                }
+                line = reader.readLine();
+            }
+        }
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("'" + queryLog + "' contains no queries");
+        }
+        return queries;
+    }
+
+    /**
+     * Runs every query in the log once, splitting the log into one contiguous share per
+     * thread, and records how long each query took.
+     */
+    private static void replay(SearchEngine engine, IList<IList<String>> queries, int k, int threads,
+                               LatencyHistogram latencies) throws InterruptedException {
+        // Copied into an array so every thread can index into it cheaply.
+        IList<String>[] log = toArray(queries);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int thread = 0; thread < threads; thread++) {
+                int from = (int) ((long) log.length * thread / threads);
+                int to = (int) ((long) log.length * (thread + 1) / threads);
+                futures[thread] = pool.submit(() -> {
+                    for (int i = from; i < to; i++) {
+                        long start = System.nanoTime();
+                        engine.getTopKResults(log[i], k);
+                        latencies.recordSince(start);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("A query failed", ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IList<String>[] toArray(IList<IList<String>> queries) {
+        IList<String>[] out = (IList<String>[]) new IList[queries.size()];
+        int i = 0;
+        for (IList<String> query : queries) {
+            out[i] = query;
+            i++;
+        }
+        return out;
+    }
+
+    /**
+     * Returns the total time recorded by one of the engine's build timers.
+     */
+    private static double stageSeconds(Metrics metrics, String name) {
+        // Asking for a timer that already exists just returns it, help text and all.
+        return metrics.timer(name, "").totalSeconds();
+    }
+
+    /**
+     * Returns roughly how many bytes of the heap are in use by live objects. A few
+     * rounds of garbage collection usually clear out everything unreachable, but the
+     * JVM doesn't promise that, so treat the result as an estimate.
+     */
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
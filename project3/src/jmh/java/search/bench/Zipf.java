@@ -0,0 +1,42 @@
+package search.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws ranks from a Zipf distribution: rank r (counting from 0) is drawn with
+ * probability proportional to 1 / (r + 1)^exponent. Word frequencies in natural
+ * language, how often queries repeat, and how many links point at each page all
+ * roughly follow this shape.
+ */
+public class Zipf {
+    // cumulative[r] is the probability of drawing a rank <= r.
+    private final double[] cumulative;
+
+    /**
+     * @throws IllegalArgumentException  if size isn't positive or exponent is negative
+     */
+    public Zipf(int size, double exponent) {
+        if (size <= 0 || exponent < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.cumulative = new double[size];
+        double total = 0.0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            this.cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            this.cumulative[rank] /= total;
+        }
+    }
+
+    /**
+     * Returns a rank between 0 (the most likely) and size - 1.
+     */
+    public int next(Random rand) {
+        int index = Arrays.binarySearch(this.cumulative, rand.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, this.cumulative.length - 1);
+    }
+}
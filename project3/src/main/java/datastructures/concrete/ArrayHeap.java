@@ -1,27 +1,50 @@
 package datastructures.concrete;
 
+import datastructures.interfaces.IList;
 import datastructures.interfaces.IPriorityQueue;
 import misc.exceptions.EmptyContainerException;
 /**
 * See IPriorityQueue for details on what each method must do.
+*
+* Both sift operations are iterative and move a "hole" rather than swapping:
+* the item being placed is held aside while the elements in its way are shifted
+* one level at a time, and is written exactly once when its final position is
+* found.
+*
+* Subclasses that need to track where each element lives can override
+* place(...), which is the only method that writes to the heap array.
 */
 public class ArrayHeap<T extends Comparable<T>> implements IPriorityQueue<T> {
     // See spec: you must implement a implement a 4-heap.
-    private static final int NUM_CHILDREN = 4;
-    
+    public static final int NUM_CHILDREN = 4;
+
     // You MUST use this field to store the contents of your heap.
     // You may NOT rename this field: we will be inspecting it within
     // our private tests.
     private T[] heap;
     private int heapSize;
-    
+
     // Feel free to add more fields and constants.
-    
+
     public ArrayHeap() {
         this.heap = makeArrayOfT(1);
         this.heapSize = 0;
     }
-    
+
+    /**
+    * Creates a heap containing every item in the given list.
+    *
+    * This runs in O(n) time rather than the O(n log n) it would take to insert
+    * the items one at a time. The list is not modified.
+    *
+    * @throws IllegalArgumentException  if any item is null
+    */
+    public ArrayHeap(IList<T> items) {
+        this.heap = makeArrayOfT(Math.max(1, items.size()));
+        this.heapSize = 0;
+        this.addAll(items);
+    }
+
     /**
     * This method will return a new, empty array of the given size
     * that can contain elements of type T.
@@ -37,74 +60,82 @@ public class ArrayHeap<T extends Comparable<T>> implements IPriorityQueue<T> {
         // works, and should not modify it in any way.
         return (T[]) (new Comparable[size]);
     }
-    
+
     @Override
     public T removeMin() {
         if (this.size() == 0) {
             throw new EmptyContainerException();
         }
-        this.heapSize--;
-        T min = heap[0];
-        heap[0] = heap[heapSize];
-        heap[0] = removeMinHelper(1, heap[0]);
-        return min;
+        return this.removeAt(0);
     }
-    
-    private T removeMinHelper(int index, T max) {
-        if (index < this.size()) {
-            T min = heap[index];
-            int minIndex = index;
-            for (int i = 1; i < NUM_CHILDREN; i++) {
-                if (index + i < this.heapSize) {
-                    if (min.compareTo(heap[index + i]) > 0) {
-                        min = heap[index + i];
-                        minIndex = index + i;
-                    }
-                } else {
-                    break;
-                }
-            }
-            if (min.compareTo(max) < 0) {
-                this.heap[minIndex] = removeMinHelper(minIndex * NUM_CHILDREN + 1, max);
-                return min;
-            } else {
-                return max;
-            }
-        } else {
-            return max;
+
+    @Override
+    public T replaceMin(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException();
         }
+        if (this.size() == 0) {
+            throw new EmptyContainerException();
+        }
+        // The new item simply takes the root's place and sifts down: unlike
+        // removeMin() followed by insert(), the heap never changes size.
+        T min = this.heap[0];
+        this.siftDown(0, item);
+        return min;
     }
-    
+
     @Override
     public void insert(T item) {
         if (item == null) {
             throw new IllegalArgumentException();
         }
-        resize();
-        this.heap[heapSize] = item;
+        this.ensureCapacity(this.heapSize + 1);
         this.heapSize++;
-        heap[this.size() - 1] = insertHelper((this.size() - 2) / NUM_CHILDREN, item);
-    }
-    
-    private T insertHelper(int index, T child) {
-        T curr = heap[index];
-        if (curr.compareTo(child) > 0) {
-            if (index > 0) {
-                heap[index] = insertHelper((index - 1) / NUM_CHILDREN, child);
-            } else {
-                heap[0] = child;
+        this.siftUp(this.heapSize - 1, item);
+    }
+
+    /**
+    * Inserts every item in the given list into this heap.
+    *
+    * If the list is at least as large as the heap already is, we append all the
+    * items and rebuild the heap bottom-up in O(n) time; otherwise we insert them
+    * one at a time.
+    *
+    * @throws IllegalArgumentException  if any item is null (in which case the
+    *                                   heap is left unchanged)
+    */
+    public void addAll(IList<T> items) {
+        for (T item : items) {
+            if (item == null) {
+                throw new IllegalArgumentException();
+            }
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+        if (items.size() < this.heapSize) {
+            for (T item : items) {
+                this.insert(item);
             }
-            return curr;
-        } else {
-            return child;
+            return;
+        }
+        this.ensureCapacity(this.heapSize + items.size());
+        for (T item : items) {
+            this.place(this.heapSize, item);
+            this.heapSize++;
+        }
+        // Leaves are trivially heaps already, so we only need to sift down the
+        // internal nodes, starting from the last one and working towards the root.
+        for (int i = this.parent(this.heapSize - 1); i >= 0; i--) {
+            this.siftDown(i, this.heap[i]);
         }
     }
-    
+
     @Override
     public int size() {
         return this.heapSize;
     }
-    
+
     @Override
     public T peekMin() {
         if (this.size() == 0) {
@@ -112,23 +143,97 @@ public class ArrayHeap<T extends Comparable<T>> implements IPriorityQueue<T> {
         }
         return this.heap[0];
     }
-    
-    private void resize() {
-        if (this.size() + 1 > this.heap.length) {
-            int newLength = this.heap.length * NUM_CHILDREN + 1;
-            T[] newHeap = makeArrayOfT(newLength);
-            for (int i = 0; i < this.size(); i++) {
-                newHeap[i] = this.heap[i];
+
+    /**
+    * Writes the given item to the given position of the heap array.
+    *
+    * Every write to the heap array goes through this method.
+    */
+    protected void place(int index, T item) {
+        this.heap[index] = item;
+    }
+
+    /**
+    * Removes and returns the element in the given position of the heap array,
+    * restoring the heap property afterwards.
+    */
+    protected T removeAt(int index) {
+        T removed = this.heap[index];
+        this.heapSize--;
+        T last = this.heap[this.heapSize];
+        this.heap[this.heapSize] = null;
+        if (index < this.heapSize) {
+            // The last element might belong either above or below the hole.
+            if (index > 0 && last.compareTo(this.heap[this.parent(index)]) < 0) {
+                this.siftUp(index, last);
+            } else {
+                this.siftDown(index, last);
             }
+        }
+        return removed;
+    }
+
+    /**
+    * Places the given item at the given position or one of its ancestors, moving
+    * every ancestor bigger than the item down one level.
+    */
+    protected void siftUp(int index, T item) {
+        while (index > 0) {
+            int parent = this.parent(index);
+            T parentItem = this.heap[parent];
+            if (parentItem.compareTo(item) <= 0) {
+                break;
+            }
+            this.place(index, parentItem);
+            index = parent;
+        }
+        this.place(index, item);
+    }
+
+    /**
+    * Places the given item at the given position or one of its descendants, moving
+    * the smallest child up one level for as long as it's smaller than the item.
+    */
+    protected void siftDown(int index, T item) {
+        while (true) {
+            int firstChild = index * NUM_CHILDREN + 1;
+            if (firstChild >= this.heapSize) {
+                break;
+            }
+            int minChild = firstChild;
+            int lastChild = Math.min(firstChild + NUM_CHILDREN, this.heapSize);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (this.heap[child].compareTo(this.heap[minChild]) < 0) {
+                    minChild = child;
+                }
+            }
+            if (this.heap[minChild].compareTo(item) >= 0) {
+                break;
+            }
+            this.place(index, this.heap[minChild]);
+            index = minChild;
+        }
+        this.place(index, item);
+    }
+
+    private int parent(int index) {
+        return (index - 1) / NUM_CHILDREN;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.heap.length) {
+            int newLength = Math.max(capacity, this.heap.length * 2);
+            T[] newHeap = makeArrayOfT(newLength);
+            System.arraycopy(this.heap, 0, newHeap, 0, this.heapSize);
             this.heap = newHeap;
         }
     }
-    
+
     public String toString() {
-        String result = "Heap: ";
+        StringBuilder result = new StringBuilder("Heap: ");
         for (int i = 0; i < this.size(); i++) {
-            result += heap[i] + " ";
+            result.append(this.heap[i]).append(' ');
         }
-        return result;
+        return result.toString();
     }
 }
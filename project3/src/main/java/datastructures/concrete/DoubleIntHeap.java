@@ -0,0 +1,167 @@
+package datastructures.concrete;
+
+import misc.exceptions.EmptyContainerException;
+
+/**
+* A min-heap of (double key, int value) pairs with a fixed capacity, meant for
+* picking the k highest-scoring items out of many without allocating anything
+* per item.
+*
+* The keys and values are stored in two parallel primitive arrays, so nothing is
+* boxed and no comparison goes through compareTo. Each node has 'arity' children
+* (by default the same number as ArrayHeap).
+*
+* Pairs with equal keys are ordered by value, with the bigger value treated as
+* the smaller pair. So when used for top-k selection, ties are always resolved in
+* favor of the smaller value, no matter what order the pairs were offered in.
+*/
+public class DoubleIntHeap {
+    private final int arity;
+    private final double[] keys;
+    private final int[] values;
+    private int size;
+
+    public DoubleIntHeap(int capacity) {
+        this(capacity, ArrayHeap.NUM_CHILDREN);
+    }
+
+    /**
+    * @throws IllegalArgumentException  if capacity < 0 or arity < 2
+    */
+    public DoubleIntHeap(int capacity, int arity) {
+        if (capacity < 0 || arity < 2) {
+            throw new IllegalArgumentException();
+        }
+        this.arity = arity;
+        this.keys = new double[capacity];
+        this.values = new int[capacity];
+        this.size = 0;
+    }
+
+    /**
+    * Adds the given pair if the heap isn't full yet, or replaces the smallest pair
+    * with it if the heap is full and the given pair is bigger. Returns 'true' if
+    * the pair was kept.
+    *
+    * Offering every item in turn leaves exactly the 'capacity' biggest pairs in the
+    * heap, in O(n log k) time.
+    */
+    public boolean offer(double key, int value) {
+        if (this.size < this.keys.length) {
+            this.size++;
+            this.siftUp(this.size - 1, key, value);
+            return true;
+        }
+        if (this.size == 0 || !less(this.keys[0], this.values[0], key, value)) {
+            return false;
+        }
+        this.siftDown(0, key, value);
+        return true;
+    }
+
+    /**
+    * Returns the key of the smallest pair.
+    *
+    * @throws EmptyContainerException  if the heap is empty
+    */
+    public double peekMinKey() {
+        this.checkNotEmpty();
+        return this.keys[0];
+    }
+
+    /**
+    * Returns the value of the smallest pair.
+    *
+    * @throws EmptyContainerException  if the heap is empty
+    */
+    public int peekMinValue() {
+        this.checkNotEmpty();
+        return this.values[0];
+    }
+
+    /**
+    * Removes the smallest pair and returns its value. Call peekMinKey() first if you
+    * also need its key.
+    *
+    * @throws EmptyContainerException  if the heap is empty
+    */
+    public int removeMin() {
+        this.checkNotEmpty();
+        int min = this.values[0];
+        this.size--;
+        if (this.size > 0) {
+            this.siftDown(0, this.keys[this.size], this.values[this.size]);
+        }
+        return min;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+    * Returns the maximum number of pairs this heap can hold.
+    */
+    public int capacity() {
+        return this.keys.length;
+    }
+
+    /**
+    * Removes every pair from this heap.
+    */
+    public void clear() {
+        this.size = 0;
+    }
+
+    private static boolean less(double key1, int value1, double key2, int value2) {
+        return key1 < key2 || (key1 == key2 && value1 > value2);
+    }
+
+    private void siftUp(int index, double key, int value) {
+        while (index > 0) {
+            int parent = (index - 1) / this.arity;
+            if (!less(key, value, this.keys[parent], this.values[parent])) {
+                break;
+            }
+            this.keys[index] = this.keys[parent];
+            this.values[index] = this.values[parent];
+            index = parent;
+        }
+        this.keys[index] = key;
+        this.values[index] = value;
+    }
+
+    private void siftDown(int index, double key, int value) {
+        while (true) {
+            int firstChild = index * this.arity + 1;
+            if (firstChild >= this.size) {
+                break;
+            }
+            int minChild = firstChild;
+            int lastChild = Math.min(firstChild + this.arity, this.size);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (less(this.keys[child], this.values[child], this.keys[minChild], this.values[minChild])) {
+                    minChild = child;
+                }
+            }
+            if (!less(this.keys[minChild], this.values[minChild], key, value)) {
+                break;
+            }
+            this.keys[index] = this.keys[minChild];
+            this.values[index] = this.values[minChild];
+            index = minChild;
+        }
+        this.keys[index] = key;
+        this.values[index] = value;
+    }
+
+    private void checkNotEmpty() {
+        if (this.size == 0) {
+            throw new EmptyContainerException();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package datastructures.concrete;
+
+import datastructures.concrete.dictionaries.OpenAddressingDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+
+import java.util.NoSuchElementException;
+
+/**
+* An ArrayHeap that also remembers where each element is stored, so it can remove
+* an arbitrary element or lower an element's priority in O(log n) time instead of
+* searching the whole heap for it.
+*
+* Elements are identified by equals() and hashCode(), so every element in the heap
+* must be distinct.
+*/
+public class IndexedArrayHeap<T extends Comparable<T>> extends ArrayHeap<T> {
+    // Maps every element to its current position in the heap array.
+    private IDictionary<T, Integer> positions;
+
+    public IndexedArrayHeap() {
+        super();
+        this.positions = new OpenAddressingDictionary<>();
+    }
+
+    /**
+    * Creates a heap containing every item in the given list, in O(n) time.
+    *
+    * @throws IllegalArgumentException  if any item is null, or the list contains
+    *                                   the same item more than once
+    */
+    public IndexedArrayHeap(IList<T> items) {
+        super();
+        this.positions = new OpenAddressingDictionary<>(items.size());
+        this.addAll(items);
+    }
+
+    /**
+    * @throws IllegalArgumentException  if the item is null or already in the heap
+    */
+    @Override
+    public void insert(T item) {
+        if (item != null && this.positions.containsKey(item)) {
+            throw new IllegalArgumentException("Item is already in the heap");
+        }
+        super.insert(item);
+    }
+
+    /**
+    * @throws IllegalArgumentException  if the item is null or already in the heap
+    */
+    @Override
+    public T replaceMin(T item) {
+        if (item != null && this.positions.containsKey(item)) {
+            throw new IllegalArgumentException("Item is already in the heap");
+        }
+        T min = super.replaceMin(item);
+        this.positions.remove(min);
+        return min;
+    }
+
+    /**
+    * @throws IllegalArgumentException  if any item is null, already in the heap, or
+    *                                   appears in the list more than once (in which
+    *                                   case the heap is left unchanged)
+    */
+    @Override
+    public void addAll(IList<T> items) {
+        ISet<T> seen = new ChainedHashSet<>();
+        for (T item : items) {
+            if (item == null || this.positions.containsKey(item) || seen.contains(item)) {
+                throw new IllegalArgumentException("Items must be non-null and distinct");
+            }
+            seen.add(item);
+        }
+        super.addAll(items);
+    }
+
+    /**
+    * Returns 'true' if the given item is in this heap.
+    */
+    public boolean contains(T item) {
+        return this.positions.containsKey(item);
+    }
+
+    /**
+    * Removes the given item from this heap.
+    *
+    * @throws NoSuchElementException  if the item isn't in the heap
+    */
+    public void remove(T item) {
+        this.removeAt(this.positionOf(item));
+    }
+
+    /**
+    * Replaces 'oldItem' with 'newItem', which must not be bigger than it, moving
+    * it towards the front of the queue as necessary.
+    *
+    * @throws NoSuchElementException    if 'oldItem' isn't in the heap
+    * @throws IllegalArgumentException  if 'newItem' is null, bigger than 'oldItem', or
+    *                                   already in the heap (other than as 'oldItem')
+    */
+    public void decreaseKey(T oldItem, T newItem) {
+        int index = this.positionOf(oldItem);
+        if (newItem == null || newItem.compareTo(oldItem) > 0) {
+            throw new IllegalArgumentException("The new item must not be bigger than the old one");
+        }
+        if (!newItem.equals(oldItem) && this.positions.containsKey(newItem)) {
+            throw new IllegalArgumentException("Item is already in the heap");
+        }
+        this.positions.remove(oldItem);
+        this.siftUp(index, newItem);
+    }
+
+    @Override
+    protected void place(int index, T item) {
+        super.place(index, item);
+        this.positions.put(item, index);
+    }
+
+    @Override
+    protected T removeAt(int index) {
+        T removed = super.removeAt(index);
+        this.positions.remove(removed);
+        return removed;
+    }
+
+    private int positionOf(T item) {
+        Integer index = this.positions.getOrDefault(item, null);
+        if (index == null) {
+            throw new NoSuchElementException();
+        }
+        return index;
+    }
+}
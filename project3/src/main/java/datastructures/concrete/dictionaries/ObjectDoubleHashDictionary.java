@@ -0,0 +1,179 @@
+package datastructures.concrete.dictionaries;
+
+import datastructures.concrete.KVPair;
+import datastructures.interfaces.IObjectDoubleDictionary;
+import misc.exceptions.NoSuchKeyException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An IObjectDoubleDictionary stored in flat parallel arrays: one for keys, one for
+ * their cached hash codes, and one for the unboxed double values.
+ *
+ * The keys are organized exactly like OpenAddressingDictionary's, by RobinHoodTable;
+ * only the values are stored differently.
+ */
+public class ObjectDoubleHashDictionary<K> extends RobinHoodTable<K> implements IObjectDoubleDictionary<K> {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private double[] values;
+
+    public ObjectDoubleHashDictionary() {
+        this(0);
+    }
+
+    /**
+     * Creates a dictionary that can store at least 'expectedSize' entries
+     * without needing to resize.
+     *
+     * @throws IllegalArgumentException  if expectedSize is negative
+     */
+    public ObjectDoubleHashDictionary(int expectedSize) {
+        this.allocate(capacityFor(DEFAULT_CAPACITY, expectedSize));
+    }
+
+    @Override
+    protected void allocateValues(int capacity) {
+        this.values = new double[capacity];
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        this.values[to] = this.values[from];
+    }
+
+    @Override
+    protected void clearValue(int slot) {
+        this.values[slot] = 0.0;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        int[] oldHashes = this.hashes;
+        K[] oldKeys = this.keys;
+        double[] oldValues = this.values;
+        this.allocate(newCapacity);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != EMPTY) {
+                this.values[this.insertNew(oldHashes[i], oldKeys[i])] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public double get(K key) {
+        int slot = this.findSlot(key);
+        if (slot < 0) {
+            throw new NoSuchKeyException();
+        }
+        return this.values[slot];
+    }
+
+    @Override
+    public double getOrDefault(K key, double defaultValue) {
+        int slot = this.findSlot(key);
+        return slot < 0 ? defaultValue : this.values[slot];
+    }
+
+    @Override
+    public void put(K key, double value) {
+        int slot = this.findSlot(key);
+        if (slot < 0) {
+            slot = this.addKey(key);
+        }
+        this.values[slot] = value;
+    }
+
+    @Override
+    public double addTo(K key, double delta) {
+        int slot = this.findSlot(key);
+        if (slot >= 0) {
+            this.values[slot] += delta;
+            return this.values[slot];
+        } else {
+            // addKey(...) may resize the table, so it has to run before we look at
+            // this.values.
+            slot = this.addKey(key);
+            this.values[slot] = delta;
+            return delta;
+        }
+    }
+
+    @Override
+    public double remove(K key) {
+        int slot = this.findSlot(key);
+        if (slot < 0) {
+            throw new NoSuchKeyException();
+        }
+        double removed = this.values[slot];
+        this.removeSlot(slot);
+        return removed;
+    }
+
+    @Override
+    public Cursor<K> cursor() {
+        return new SlotCursor<>(this.keys, this.values, this.hashes);
+    }
+
+    @Override
+    public Iterator<KVPair<K, Double>> iterator() {
+        return new CursorIterator<>(this.cursor(), this.size());
+    }
+
+    private static class SlotCursor<K> implements Cursor<K> {
+        private K[] keys;
+        private double[] values;
+        private int[] hashes;
+        private int slot;
+
+        public SlotCursor(K[] keys, double[] values, int[] hashes) {
+            this.keys = keys;
+            this.values = values;
+            this.hashes = hashes;
+            this.slot = -1;
+        }
+
+        @Override
+        public boolean advance() {
+            do {
+                this.slot++;
+            } while (this.slot < this.hashes.length && this.hashes[this.slot] == EMPTY);
+            return this.slot < this.hashes.length;
+        }
+
+        @Override
+        public K key() {
+            return this.keys[this.slot];
+        }
+
+        @Override
+        public double value() {
+            return this.values[this.slot];
+        }
+    }
+
+    private static class CursorIterator<K> implements Iterator<KVPair<K, Double>> {
+        private Cursor<K> cursor;
+        private int remaining;
+
+        public CursorIterator(Cursor<K> cursor, int size) {
+            this.cursor = cursor;
+            this.remaining = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @Override
+        public KVPair<K, Double> next() {
+            if (!this.hasNext() || !this.cursor.advance()) {
+                throw new NoSuchElementException();
+            }
+            this.remaining--;
+            return new KVPair<>(this.cursor.key(), this.cursor.value());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package datastructures.concrete.dictionaries;
+
+import datastructures.concrete.KVPair;
+import datastructures.interfaces.IDictionary;
+import misc.exceptions.NoSuchKeyException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An IDictionary backed by a single open-addressed hash table.
+ *
+ * Keys, values, and each key's (scrambled) hash code are stored in three parallel
+ * arrays, and collisions are resolved using Robin Hood linear probing; see
+ * RobinHoodTable, which does everything but store the values, for the details.
+ *
+ * See IDictionary for more details on what each method does.
+ */
+public class OpenAddressingDictionary<K, V> extends RobinHoodTable<K> implements IDictionary<K, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // values[i] is the value of the key in keys[i].
+    private V[] values;
+
+    public OpenAddressingDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a dictionary that can store at least 'expectedSize' entries
+     * without needing to resize.
+     *
+     * @throws IllegalArgumentException  if expectedSize is negative
+     */
+    public OpenAddressingDictionary(int expectedSize) {
+        this.allocate(capacityFor(DEFAULT_CAPACITY, expectedSize));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void allocateValues(int capacity) {
+        this.values = (V[]) new Object[capacity];
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        this.values[to] = this.values[from];
+    }
+
+    @Override
+    protected void clearValue(int slot) {
+        this.values[slot] = null;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        int[] oldHashes = this.hashes;
+        K[] oldKeys = this.keys;
+        V[] oldValues = this.values;
+        this.allocate(newCapacity);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != EMPTY) {
+                this.values[this.insertNew(oldHashes[i], oldKeys[i])] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        int slot = this.findSlot(key);
+        if (slot < 0) {
+            throw new NoSuchKeyException();
+        }
+        return this.values[slot];
+    }
+
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        int slot = this.findSlot(key);
+        return slot < 0 ? defaultValue : this.values[slot];
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int slot = this.findSlot(key);
+        if (slot < 0) {
+            slot = this.addKey(key);
+        }
+        this.values[slot] = value;
+    }
+
+    @Override
+    public V remove(K key) {
+        int slot = this.findSlot(key);
+        if (slot < 0) {
+            throw new NoSuchKeyException();
+        }
+        V removed = this.values[slot];
+        this.removeSlot(slot);
+        return removed;
+    }
+
+    @Override
+    public Iterator<KVPair<K, V>> iterator() {
+        return new OpenAddressingIterator<>(this.keys, this.values, this.hashes);
+    }
+
+    private static class OpenAddressingIterator<K, V> implements Iterator<KVPair<K, V>> {
+        private K[] keys;
+        private V[] values;
+        private int[] hashes;
+
+        // The next used slot to return, or hashes.length once we're done.
+        private int slot;
+
+        public OpenAddressingIterator(K[] keys, V[] values, int[] hashes) {
+            this.keys = keys;
+            this.values = values;
+            this.hashes = hashes;
+            this.slot = this.findUsedSlot(0);
+        }
+
+        private int findUsedSlot(int start) {
+            int index = start;
+            while (index < this.hashes.length && this.hashes[index] == EMPTY) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.slot < this.hashes.length;
+        }
+
+        @Override
+        public KVPair<K, V> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            KVPair<K, V> pair = new KVPair<>(this.keys[this.slot], this.values[this.slot]);
+            this.slot = this.findUsedSlot(this.slot + 1);
+            return pair;
+        }
+    }
+}
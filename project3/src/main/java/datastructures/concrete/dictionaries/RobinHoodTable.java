@@ -0,0 +1,202 @@
+package datastructures.concrete.dictionaries;
+
+/**
+ * The key half of an open-addressed hash table, shared by OpenAddressingDictionary and
+ * ObjectDoubleHashDictionary. This class finds, inserts and removes keys; subclasses
+ * store the values, in a parallel array of whatever type they like, and keep it in
+ * step through the hooks below.
+ *
+ * Keys and each key's (scrambled) hash code are stored in two parallel arrays, so a
+ * lookup touches at most a few adjacent slots instead of following a pointer into a
+ * per-bucket chain. Collisions are resolved using Robin Hood linear probing: entries
+ * are kept in order of their home slot, so an entry that is closer to its home slot
+ * gives up its spot to an entry being inserted. This keeps probe sequences short even
+ * at high load factors and lets unsuccessful lookups stop early.
+ *
+ * Removal uses backward-shift deletion, so the table never contains tombstones.
+ */
+abstract class RobinHoodTable<K> {
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    // A cached hash code of EMPTY marks an unused slot; real hash codes are
+    // remapped so they never collide with it (see 'hashOf').
+    protected static final int EMPTY = 0;
+
+    // Invariants:
+    //
+    // - keys.length == hashes.length (and the length of the subclass's values), and is
+    //   a power of two.
+    // - hashes[i] == EMPTY if and only if slot i is unused.
+    // - For every used slot, every slot between its home slot and itself is used.
+    protected K[] keys;
+    protected int[] hashes;
+    private int size;
+    private int resizeThreshold;
+
+    /**
+     * Returns the number of slots a table needs to store at least 'expectedSize' entries
+     * without needing to resize, but no fewer than 'minCapacity' (a power of two).
+     *
+     * @throws IllegalArgumentException  if expectedSize is negative
+     */
+    protected static int capacityFor(int minCapacity, int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException();
+        }
+        int capacity = minCapacity;
+        while (capacity * MAX_LOAD_FACTOR < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Replaces the table with an empty one with the given number of slots.
+     */
+    @SuppressWarnings("unchecked")
+    protected void allocate(int capacity) {
+        this.keys = (K[]) new Object[capacity];
+        this.hashes = new int[capacity];
+        this.resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+        this.allocateValues(capacity);
+    }
+
+    /**
+     * Replaces the values with an empty array with the given number of slots.
+     */
+    protected abstract void allocateValues(int capacity);
+
+    /**
+     * Copies the value in slot 'from' to slot 'to'.
+     */
+    protected abstract void moveValue(int from, int to);
+
+    /**
+     * Clears the value in the given slot, which is no longer used.
+     */
+    protected abstract void clearValue(int slot);
+
+    /**
+     * Grows the table to the given number of slots: calls allocate(...), and then
+     * insertNew(...) once for every entry in the old table, copying its value into the
+     * slot that returns.
+     */
+    protected abstract void resize(int newCapacity);
+
+    /**
+     * Returns a well-mixed, non-EMPTY hash code for the given key.
+     *
+     * We mask with (length - 1) to find a key's home slot, so we scramble the
+     * bits first: otherwise, keys whose hash codes differ only in their high bits
+     * (common with Integer and small strings) would all pile up in the same place.
+     */
+    private static int hashOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode() * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    private int probeDistance(int slot) {
+        int mask = this.hashes.length - 1;
+        return (slot - (this.hashes[slot] & mask)) & mask;
+    }
+
+    private static boolean keysEqual(Object a, Object b) {
+        return a == b || (a != null && a.equals(b));
+    }
+
+    /**
+     * Returns the slot containing the given key, or -1 if the key is not present.
+     */
+    protected int findSlot(K key) {
+        int hash = hashOf(key);
+        int mask = this.hashes.length - 1;
+        int slot = hash & mask;
+        for (int distance = 0; this.hashes[slot] != EMPTY; distance++) {
+            // Robin Hood invariant: had our key been present, it would have
+            // displaced any entry that is closer to its home than we are now.
+            if (distance > this.probeDistance(slot)) {
+                return -1;
+            }
+            if (this.hashes[slot] == hash && keysEqual(this.keys[slot], key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a key we know is not already present, growing the table first if needed,
+     * and returns its slot. The caller must store its value there.
+     */
+    protected int addKey(K key) {
+        if (this.size + 1 > this.resizeThreshold) {
+            this.resize(this.hashes.length * 2);
+        }
+        this.size++;
+        return this.insertNew(hashOf(key), key);
+    }
+
+    /**
+     * Inserts a key (with the given hash code) we know is not already present, using
+     * Robin Hood probing, and returns its slot. The caller must store its value there.
+     *
+     * The new entry goes in the first slot that's empty or holds an entry closer to its
+     * home than we are to ours. Every entry from there up to the next empty slot moves
+     * forward by one to make room, which keeps them in order of their home slot.
+     */
+    protected int insertNew(int hash, K key) {
+        int mask = this.hashes.length - 1;
+        int slot = hash & mask;
+        int distance = 0;
+        while (this.hashes[slot] != EMPTY && this.probeDistance(slot) >= distance) {
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+
+        int hole = slot;
+        while (this.hashes[hole] != EMPTY) {
+            hole = (hole + 1) & mask;
+        }
+        while (hole != slot) {
+            int previous = (hole - 1) & mask;
+            this.hashes[hole] = this.hashes[previous];
+            this.keys[hole] = this.keys[previous];
+            this.moveValue(previous, hole);
+            hole = previous;
+        }
+        this.hashes[slot] = hash;
+        this.keys[slot] = key;
+        return slot;
+    }
+
+    /**
+     * Removes the entry in the given (used) slot.
+     */
+    protected void removeSlot(int slot) {
+        // Backward-shift deletion: pull every following entry that isn't already
+        // in its home slot back by one, so lookups never hit a gap early.
+        int mask = this.hashes.length - 1;
+        int next = (slot + 1) & mask;
+        while (this.hashes[next] != EMPTY && this.probeDistance(next) > 0) {
+            this.hashes[slot] = this.hashes[next];
+            this.keys[slot] = this.keys[next];
+            this.moveValue(next, slot);
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        this.hashes[slot] = EMPTY;
+        this.keys[slot] = null;
+        this.clearValue(slot);
+        this.size--;
+    }
+
+    public boolean containsKey(K key) {
+        return this.findSlot(key) >= 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,104 @@
+package datastructures.interfaces;
+
+import datastructures.concrete.KVPair;
+import misc.exceptions.NoSuchKeyException;
+
+import java.util.Iterator;
+
+/**
+ * Represents a dictionary mapping keys to primitive double values. Each key must be unique.
+ *
+ * This behaves just like an IDictionary<K, Double>, except that values are never boxed
+ * into Double objects. Use the 'cursor()' method to walk over every entry without
+ * allocating anything; the 'iterator()' method is available for convenience but
+ * creates a new KVPair for every entry.
+ */
+public interface IObjectDoubleDictionary<K> extends Iterable<KVPair<K, Double>> {
+    /**
+     * Returns the value corresponding to the given key.
+     *
+     * @throws NoSuchKeyException if the dictionary does not contain the given key.
+     */
+    public double get(K key);
+
+    /**
+     * Returns the value corresponding to the given key, if the key exists in the map.
+     *
+     * If the key does *not* contain the given key, returns the default value.
+     */
+    public double getOrDefault(K key, double defaultValue);
+
+    /**
+     * Adds the key-value pair to the dictionary. If the key already exists in the dictionary,
+     * replace its value with the given one.
+     */
+    public void put(K key, double value);
+
+    /**
+     * Adds 'delta' to the value corresponding to the given key, treating a missing key as if
+     * it were mapped to 0.0. Returns the updated value.
+     */
+    public double addTo(K key, double delta);
+
+    /**
+     * Remove the key-value pair corresponding to the given key from the dictionary.
+     *
+     * @throws NoSuchKeyException if the dictionary does not contain the given key.
+     */
+    public double remove(K key);
+
+    /**
+     * Returns 'true' if the dictionary contains the given key and 'false' otherwise.
+     */
+    public boolean containsKey(K key);
+
+    /**
+     * Returns the number of key-value pairs stored in this dictionary.
+     */
+    public int size();
+
+    /**
+     * Returns 'true' if this dictionary is empty and 'false' otherwise.
+     */
+    public default boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Returns a cursor positioned before the first entry of this dictionary.
+     *
+     * The dictionary must not be modified while the cursor is in use, except for
+     * replacing the values of keys that are already present.
+     */
+    public Cursor<K> cursor();
+
+    /**
+     * Returns an iterator over all key-value pairs contained within this dict.
+     */
+    public Iterator<KVPair<K, Double>> iterator();
+
+    /**
+     * An allocation-free way of visiting every entry in an IObjectDoubleDictionary:
+     *
+     *     Cursor<K> cursor = dict.cursor();
+     *     while (cursor.advance()) {
+     *         use(cursor.key(), cursor.value());
+     *     }
+     */
+    public interface Cursor<K> {
+        /**
+         * Moves to the next entry. Returns 'false' if there are no entries left.
+         */
+        public boolean advance();
+
+        /**
+         * Returns the key of the current entry.
+         */
+        public K key();
+
+        /**
+         * Returns the value of the current entry.
+         */
+        public double value();
+    }
+}
@@ -36,6 +36,25 @@ public interface IPriorityQueue<T extends Comparable<T>> {
      */
     void insert(T item);
 
+    /**
+     * Removes and returns the smallest element in the queue, and inserts the
+     * given item in its place.
+     *
+     * This is equivalent to calling removeMin() followed by insert(item), but
+     * implementations may do it in a single pass.
+     *
+     * @throws EmptyContainerException   if the queue is empty
+     * @throws IllegalArgumentException  if the item is null
+     */
+    default T replaceMin(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException();
+        }
+        T min = this.removeMin();
+        this.insert(item);
+        return min;
+    }
+
     /**
      * Returns the number of elements contained within this queue.
      */
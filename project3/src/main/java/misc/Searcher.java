@@ -5,6 +5,8 @@ import datastructures.concrete.ArrayHeap;
 import datastructures.concrete.DoubleLinkedList;
 import datastructures.interfaces.IList;
 
+import java.util.Iterator;
+
 public class Searcher {
     /**
     * This method takes the input list and returns the top k elements
@@ -32,27 +34,57 @@ public class Searcher {
         //
         // - You should implement this method by using your ArrayHeap for the sake of
         //   efficiency.
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (k < input.size()) {
+            return topK(k, input.iterator());
+        }
+
+        // Every element makes the cut, so there's nothing to discard: building the
+        // heap in one go is cheaper than inserting the elements one at a time.
+        IPriorityQueue<T> heap = new ArrayHeap<T>(input);
+        IList<T> list = new DoubleLinkedList<T>();
+        while (!heap.isEmpty()) {
+            list.add(heap.removeMin());
+        }
+        return list;
+    }
+
+    /**
+    * Returns the top k elements produced by the given iterator, in sorted order
+    * (smallest first), just like topKSort(...).
+    *
+    * The elements are consumed one at a time and never stored anywhere except in
+    * a heap holding the k biggest elements seen so far, so this takes O(n log k)
+    * time and O(k) extra memory. Elements that are too small to make the cut are
+    * discarded as soon as they're produced.
+    *
+    * @throws IllegalArgumentException  if k < 0
+    */
+    public static <T extends Comparable<T>> IList<T> topK(int k, Iterator<T> input) {
         if (k < 0) {
             throw new IllegalArgumentException();
         }
         IPriorityQueue<T> heap = new ArrayHeap<T>();
         IList<T> list = new DoubleLinkedList<T>();
-        
-        if (input.size() > 0 && k > 0) {
-            for (T element : input) {
+        if (k == 0) {
+            return list;
+        }
+
+        // The root of the heap is always the smallest of the k elements we're
+        // keeping, so a new element only gets in if it's bigger than the root.
+        while (input.hasNext()) {
+            T element = input.next();
+            if (heap.size() < k) {
                 heap.insert(element);
+            } else if (element.compareTo(heap.peekMin()) > 0) {
+                heap.replaceMin(element);
             }
-            int heapSize = heap.size();
-            if (k > heapSize) {
-                k = heapSize;
-            }
-            for (int i = 0; i < heapSize - k; i++) {
-                heap.removeMin();
-            }
-            for (int i = heapSize - k; i < heapSize; i++) {
-                list.add(heap.removeMin());
-            }
+        }
+        while (!heap.isEmpty()) {
+            list.add(heap.removeMin());
         }
         return list;
     }
-}
\ No newline at end of file
+}
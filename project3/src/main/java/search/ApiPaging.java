@@ -0,0 +1,91 @@
+package search;
+
+import search.models.Result;
+
+import java.util.function.IntFunction;
+
+/**
+ * The paging arithmetic behind '/api/search' (see Webapp.handleApiSearch): which
+ * results a request asks for, where its page starts, and the cursor for the page
+ * after it. It's kept apart from the web server so it can be tested on its own.
+ */
+class ApiPaging {
+    // The fewest results we ask the search engine for. Every request asks for a power
+    // of two, at least this many (and at most Webapp.API_MAX_RANKING_SIZE), so that
+    // fetching the next few pages of a query finds its results already in the search
+    // engine's result cache.
+    static final int MIN_RANKING_SIZE = 64;
+
+    /**
+     * Returns the best results for a query, best first: enough of them to hold the
+     * requested page and at least one result after it, if there is one. 'search'
+     * returns the best 'k' results for the query, or null if the search engine was too
+     * busy, in which case so do we.
+     *
+     * With 'after_score', we can't tell how many results we need until we've seen them,
+     * so if the ranking turns out too short we ask for one twice as long. Paging through
+     * a query therefore only makes the search engine rank it a handful of times, and
+     * every page in between is served from its result cache. We never ask for more than
+     * Webapp.API_MAX_RANKING_SIZE results, so a request makes at most a handful of
+     * searches.
+     *
+     * Precondition: offset + limit is at most Webapp.API_MAX_RANKING_SIZE
+     */
+    static Result[] rank(IntFunction<Result[]> search, double afterScore, int offset, int limit) {
+        int rankingSize = Math.min(
+                Webapp.API_MAX_RANKING_SIZE,
+                Math.max(MIN_RANKING_SIZE, Integer.highestOneBit(offset + limit) * 2));
+        while (true) {
+            Result[] ranking = search.apply(rankingSize);
+            if (ranking == null) {
+                return null;
+            }
+            // A ranking shorter than we asked for has every page in it, and we won't
+            // look any deeper than API_MAX_RANKING_SIZE.
+            boolean complete = ranking.length < rankingSize || rankingSize == Webapp.API_MAX_RANKING_SIZE;
+            if (complete || findStart(ranking, afterScore, offset) + limit < ranking.length) {
+                return ranking;
+            }
+            rankingSize = Math.min(Webapp.API_MAX_RANKING_SIZE, rankingSize * 2);
+        }
+    }
+
+    /**
+     * Returns the position in the ranking of the first result to return, as described
+     * in Webapp.handleApiSearch(...). 'afterScore' is NaN if there is no 'after_score'.
+     */
+    static int findStart(Result[] ranking, double afterScore, int offset) {
+        if (Double.isNaN(afterScore)) {
+            return Math.min(offset, ranking.length);
+        }
+        int start = 0;
+        while (start < ranking.length && ranking[start].getScore() > afterScore) {
+            start++;
+        }
+        for (int i = 0; i < offset && start < ranking.length && ranking[start].getScore() == afterScore; i++) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Returns the 'offset' of the cursor for the page after the results from position
+     * 'start' up to 'end' in the ranking, or -1 if there is no next page. The cursor's
+     * 'after_score' is the score of the last result on this page.
+     *
+     * The cursor skips every result tying with the last one on this page, up to and
+     * including it. We leave it out if asking for another page this size with it would
+     * go past Webapp.API_MAX_RANKING_SIZE, since that request would be refused.
+     */
+    static int nextOffset(Result[] ranking, int start, int end) {
+        if (end >= ranking.length || end <= start) {
+            return -1;
+        }
+        double lastScore = ranking[end - 1].getScore();
+        int ties = 0;
+        while (ties < end && ranking[end - 1 - ties].getScore() == lastScore) {
+            ties++;
+        }
+        return ties + (end - start) <= Webapp.API_MAX_RANKING_SIZE ? ties : -1;
+    }
+}
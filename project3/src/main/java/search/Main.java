@@ -1,10 +1,17 @@
 package search;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class Main {
     // The dataset to index and search.
     // MUST be the name of one of the folders in the 'data' folder.
     public static final String DATA_FOLDER_NAME = "wikipedia";
 
+    // The index we build is saved here, and reused on the next start as long as the
+    // files in the data folder haven't changed. Delete it to force a full rebuild.
+    public static final Path SNAPSHOT_PATH = Paths.get("data", DATA_FOLDER_NAME + ".snapshot");
+
     // The name of your search engine (feel free to change this).
     public static final String SITE_TITLE = "Noodle";
 
@@ -15,7 +22,7 @@ public class Main {
 
     public static void main(String[] args) {
         System.out.println("Indexing web pages...");
-        SearchEngine engine = new SearchEngine(DATA_FOLDER_NAME);
+        SearchEngine engine = SearchEngine.open(SNAPSHOT_PATH, DATA_FOLDER_NAME);
 
         System.out.println("Setting up web server...");
         Webapp app = new Webapp(engine, SITE_TITLE, PORT);
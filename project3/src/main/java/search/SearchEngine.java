@@ -1,61 +1,358 @@
 package search;
 
 import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleIntHeap;
 import datastructures.concrete.DoubleLinkedList;
 import datastructures.interfaces.IList;
 import datastructures.interfaces.ISet;
-import misc.Searcher;
+import search.analyzers.ConvergenceStrategy;
 import search.analyzers.PageRankAnalyzer;
+import search.analyzers.PreparedQuery;
 import search.analyzers.TfIdfAnalyzer;
+import search.analyzers.TopKRetriever;
 import search.misc.exceptions.DataExtractionException;
 import search.misc.Bridge;
+import search.misc.CorpusCache;
+import search.misc.CorpusFingerprint;
+import search.misc.IndexSnapshot;
+import search.misc.LatencyHistogram;
+import search.misc.LruCache;
+import search.misc.Metrics;
+import search.models.DocumentIdRegistry;
 import search.models.Result;
 import search.models.Webpage;
-import search.models.WebpageSummary;
 
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class SearchEngine {
     public static double PAGE_RANK_DECAY = 0.85;
     public static double PAGE_RANK_EPSILON = 0.0001;
     public static int PAGE_RANK_ITERATION_LIMIT = 200;
 
-    private ISet<WebpageSummary> pages;
+    // The number of threads used to compute page ranks. The ranks are the same no
+    // matter how many threads are used.
+    public static int PAGE_RANK_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+    // How page rank iterates towards the final ranks (see ConvergenceStrategy).
+    public static ConvergenceStrategy PAGE_RANK_STRATEGY = ConvergenceStrategy.JACOBI;
+
+    // The number of threads used to parse webpages while loading the corpus.
+    // Set this to 1 to load pages one at a time on the calling thread.
+    public static int LOADING_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+    // The number of recent queries whose results we remember (see LruCache). Set this
+    // to 0 to turn the cache off.
+    public static int RESULT_CACHE_SIZE = 1000;
+
+    // Parsed pages are cached in this file inside the data folder (see CorpusCache).
+    public static final String CORPUS_CACHE_FILE_NAME = "corpus.cache";
+
+    // The corpus this engine was built from; recorded in any snapshot we write.
+    private Path corpusRoot;
+    private CorpusFingerprint fingerprint;
+
+    private DocumentIdRegistry registry;
     private TfIdfAnalyzer tfIdfAnalyzer;
     private PageRankAnalyzer pageRankAnalyzer;
+    private TopKRetriever retriever;
+
+    // The results of recent queries, keyed by resultCacheKey(...). Cleared whenever
+    // pages are added or removed, since that can change any query's results.
+    private final LruCache<String, IList<Result>> resultCache = new LruCache<>(RESULT_CACHE_SIZE);
+
+    // Queries only read the index, so any number of them can run at once; adding or
+    // removing pages needs the index to itself.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // How long each stage of building the index and answering queries takes, along with
+    // the size of the index; see getMetrics().
+    private final Metrics metrics = new Metrics();
+    private final LatencyHistogram prepareTimes = this.metrics.timer(
+            "search_query_prepare_seconds", "Time spent turning a query into a TF-IDF vector.");
+    private final LatencyHistogram retrieveTimes = this.metrics.timer(
+            "search_query_retrieve_seconds", "Time spent scoring pages and selecting the top k for a query.");
+    private final LatencyHistogram resultTimes = this.metrics.timer(
+            "search_query_results_seconds", "Time spent turning a query's top k pages into results.");
+    private final LatencyHistogram updateTimes = this.metrics.timer(
+            "search_index_update_seconds", "Time spent adding or removing a batch of pages.");
 
     public SearchEngine(String dataFolderName) {
-        long start = System.currentTimeMillis();
-        ISet<Webpage> webpages = this.collectWebpages(Paths.get("data", dataFolderName));
-        long end = System.currentTimeMillis() - start;
-        System.out.println("Done loading pages (" + (end / 1000.0) + " sec)");
+        this(Paths.get("data", dataFolderName));
+    }
+
+    private SearchEngine(Path root) {
+        this.corpusRoot = root;
 
-        this.pages = this.extractWebpageSummaries(webpages);
+        long start = System.nanoTime();
+        ISet<Webpage> webpages = this.collectWebpages(root);
+        long loadTime = System.nanoTime() - start;
+        this.metrics.timer("search_load_seconds", "Time spent loading every webpage in the corpus.")
+                .record(loadTime);
+        System.out.println("Done loading pages (" + seconds(loadTime) + " sec)");
+
+        this.registry = DocumentIdRegistry.of(webpages);
         System.out.println("Done extracting");
 
-        start = System.currentTimeMillis();
-        this.tfIdfAnalyzer = new TfIdfAnalyzer(webpages);
+        start = System.nanoTime();
+        this.tfIdfAnalyzer = new TfIdfAnalyzer(webpages, this.registry);
+        long tfIdfTime = System.nanoTime() - start;
+        this.metrics.timer("search_tfidf_build_seconds", "Time spent building the TF-IDF index.")
+                .record(tfIdfTime);
+
+        start = System.nanoTime();
         this.pageRankAnalyzer = new PageRankAnalyzer(
                 webpages,
+                this.registry,
                 PAGE_RANK_DECAY,
                 PAGE_RANK_EPSILON,
-                PAGE_RANK_ITERATION_LIMIT);
-        end = System.currentTimeMillis() - start;
-        System.out.println("Done indexing (" + (end / 1000.0) + " sec)");
+                PAGE_RANK_ITERATION_LIMIT,
+                PAGE_RANK_THREAD_COUNT,
+                PAGE_RANK_STRATEGY);
+        long pageRankTime = System.nanoTime() - start;
+        this.metrics.timer("search_pagerank_seconds", "Time spent computing every page rank from scratch.")
+                .record(pageRankTime);
+        System.out.println("Done indexing (" + seconds(tfIdfTime + pageRankTime) + " sec)");
+        System.out.println("    Page rank converged after "
+                + this.pageRankAnalyzer.getIterationCount() + " iterations");
+        this.retriever = new TopKRetriever(this.tfIdfAnalyzer, this.registry, this::boost);
+        this.registerIndexMetrics();
+    }
+
+    private SearchEngine(IndexSnapshot snapshot) {
+        this.corpusRoot = snapshot.getHeader().getCorpusRoot();
+        this.fingerprint = snapshot.getHeader().getFingerprint();
+        this.registry = snapshot.getRegistry();
+        this.tfIdfAnalyzer = snapshot.getTfIdfAnalyzer();
+        this.pageRankAnalyzer = snapshot.getPageRankAnalyzer();
+        this.retriever = new TopKRetriever(this.tfIdfAnalyzer, this.registry, this::boost);
+        this.registerIndexMetrics();
+    }
+
+    /**
+     * Reports the size of the index, and how well the result cache is doing, through
+     * our metrics. These are read without taking the lock: they might be a moment out of
+     * date, but never inconsistent enough to matter.
+     */
+    private void registerIndexMetrics() {
+        this.metrics.gauge("search_pages", "Number of pages in the index.",
+                () -> this.registry.numActivePages());
+        this.metrics.gauge("search_terms", "Number of distinct words ever seen in the index.",
+                () -> this.tfIdfAnalyzer.numTerms());
+        this.metrics.gauge("search_postings", "Number of (word, page) pairs in the inverted index.",
+                () -> this.tfIdfAnalyzer.numPostings());
+        this.metrics.gauge("search_pagerank_iterations", "Iterations the last page rank computation took.",
+                () -> this.pageRankAnalyzer.getIterationCount());
+        this.metrics.counter("search_result_cache_hits_total", "Queries answered from the result cache.",
+                () -> this.resultCache.getHits());
+        this.metrics.counter("search_result_cache_misses_total", "Queries the result cache couldn't answer.",
+                () -> this.resultCache.getMisses());
+        this.metrics.gauge("search_result_cache_entries", "Number of queries in the result cache.",
+                () -> this.resultCache.size());
+    }
+
+    /**
+     * Returns the metrics this engine records, so they can be reported (along with any
+     * others the caller wants to add).
+     */
+    public Metrics getMetrics() {
+        return this.metrics;
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1000000 / 1000.0;
+    }
+
+    /**
+     * Returns a search engine for the given data folder, loaded from the given snapshot
+     * file if that snapshot was built from the folder's current contents.
+     *
+     * Otherwise (the snapshot is missing, out of date, or damaged) this builds the
+     * engine from scratch, just like the constructor, and then writes a fresh snapshot
+     * so the next call is fast.
+     */
+    public static SearchEngine open(Path snapshotPath, String dataFolderName) {
+        return open(snapshotPath, Paths.get("data", dataFolderName));
+    }
+
+    /**
+     * Returns a search engine for the corpus the given snapshot was built from. See
+     * open(Path, String) for details.
+     *
+     * @throws DataExtractionException  if the given file isn't an index snapshot at all,
+     *                                  since we then don't know which corpus to rebuild
+     */
+    public static SearchEngine open(Path snapshotPath) {
+        IndexSnapshot.Header header = IndexSnapshot.readHeader(snapshotPath);
+        if (header == null) {
+            throw new DataExtractionException("'" + snapshotPath + "' is not a readable index snapshot");
+        }
+        return open(snapshotPath, header.getCorpusRoot());
+    }
+
+    private static SearchEngine open(Path snapshotPath, Path root) {
+        long start = System.nanoTime();
+        IndexSnapshot.Header header = IndexSnapshot.readHeader(snapshotPath);
+        if (header != null && header.getCorpusRoot().equals(root.toAbsolutePath().normalize())
+                && header.getFingerprint().equals(CorpusFingerprint.of(listCorpusFiles(root)))) {
+            try {
+                SearchEngine engine = new SearchEngine(IndexSnapshot.read(snapshotPath));
+                long end = System.nanoTime() - start;
+                engine.metrics.timer("search_snapshot_load_seconds", "Time spent loading the index snapshot.")
+                        .record(end);
+                System.out.println("Done loading index snapshot (" + seconds(end) + " sec)");
+                return engine;
+            } catch (DataExtractionException ex) {
+                System.err.println("Ignoring unreadable index snapshot: " + ex.getMessage());
+            }
+        } else if (header != null) {
+            System.out.println("Index snapshot is out of date; rebuilding");
+        }
+
+        SearchEngine engine = new SearchEngine(root);
+        try {
+            engine.saveSnapshot(snapshotPath);
+        } catch (DataExtractionException ex) {
+            // The snapshot is only an optimization: failing to write it shouldn't stop us.
+            System.err.println(ex.getMessage());
+        }
+        return engine;
+    }
+
+    /**
+     * Writes everything this engine computed while indexing to the given file, so it
+     * can be reloaded by open(...).
+     *
+     * @throws DataExtractionException  if the file could not be written
+     */
+    public void saveSnapshot(Path snapshotPath) {
+        long start = System.nanoTime();
+        this.lock.readLock().lock();
+        try {
+            new IndexSnapshot(
+                    this.corpusRoot,
+                    this.fingerprint,
+                    this.registry,
+                    this.tfIdfAnalyzer,
+                    this.pageRankAnalyzer).write(snapshotPath);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        long end = System.nanoTime() - start;
+        this.metrics.timer("search_snapshot_save_seconds", "Time spent writing the index snapshot.").record(end);
+        System.out.println("Done writing index snapshot (" + seconds(end) + " sec)");
+    }
+
+    /**
+     * Adds the given webpages to the index, so they can be found by the very next query,
+     * and updates every page rank. Pages we already know about are replaced.
+     */
+    public void addPages(ISet<Webpage> webpages) {
+        long start = System.nanoTime();
+        this.lock.writeLock().lock();
+        try {
+            for (Webpage page : webpages) {
+                this.tfIdfAnalyzer.addDocument(page);
+            }
+            this.pageRankAnalyzer.addPages(webpages);
+            this.resultCache.clear();
+        } finally {
+            this.lock.writeLock().unlock();
+            this.updateTimes.recordSince(start);
+        }
+    }
+
+    /**
+     * Removes the webpages with the given URIs from the index and updates every page
+     * rank. URIs of pages we don't know about are ignored.
+     */
+    public void removePages(ISet<URI> pageUris) {
+        long start = System.nanoTime();
+        this.lock.writeLock().lock();
+        try {
+            ISet<URI> removed = new ChainedHashSet<>();
+            for (URI uri : pageUris) {
+                if (this.registry.contains(this.registry.getIdOrDefault(uri, -1))) {
+                    this.tfIdfAnalyzer.removeDocument(uri);
+                    removed.add(uri);
+                }
+            }
+            this.pageRankAnalyzer.removePages(removed);
+            for (URI uri : removed) {
+                this.registry.remove(uri);
+            }
+            this.resultCache.clear();
+        } finally {
+            this.lock.writeLock().unlock();
+            this.updateTimes.recordSince(start);
+        }
+    }
+
+    /**
+     * Turns the given query into a form that can be scored against many pages without
+     * redoing any per-query work; see computeScore(PreparedQuery, URI). The result can
+     * be used until pages are next added or removed.
+     */
+    public PreparedQuery prepare(IList<String> query) {
+        this.lock.readLock().lock();
+        try {
+            return this.tfIdfAnalyzer.prepare(query);
+        } finally {
+            this.lock.readLock().unlock();
+        }
     }
 
     public double computeScore(IList<String> query, URI uri) {
-        double tfIdf = this.tfIdfAnalyzer.computeRelevance(query, uri);
-        double pageRank = this.pageRankAnalyzer.computePageRank(uri);
+        this.lock.readLock().lock();
+        try {
+            return this.score(this.tfIdfAnalyzer.prepare(query), uri);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the score of the given page for a query returned by prepare(...).
+     *
+     * @throws IllegalStateException  if pages have been added or removed since the query
+     *                                was prepared
+     */
+    public double computeScore(PreparedQuery query, URI uri) {
+        this.lock.readLock().lock();
+        try {
+            return this.score(query, uri);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private double score(PreparedQuery query, URI uri) {
+        int documentId = this.registry.getId(uri);
+        return this.combineScores(documentId, this.tfIdfAnalyzer.computeRelevance(query, documentId));
+    }
+
+    private double combineScores(int documentId, double tfIdf) {
+        return tfIdf * this.boost(documentId);
+    }
+
+    /**
+     * Returns the number a page's TF-IDF score is multiplied by to get its final score.
+     */
+    private double boost(int documentId) {
+        double pageRank = this.pageRankAnalyzer.computePageRank(documentId);
 
         if (pageRank <= 0.0) {
             throw new IllegalStateException(String.format(
                     "Page '%s' had a page rank of '%f'; all page ranks should be positive and non-zero.",
-                    uri, pageRank));
+                    this.registry.getUri(documentId), pageRank));
         }
 
         // We are combining these two scores in a fairly arbitrary way.
@@ -79,45 +376,175 @@ public class SearchEngine {
         // but it's still a pretty ad-hoc approach. Feel free to adjust or
         // change this formula: we will be grading your TfIdfAnalyzer and
         // PageRankAnalyzer classes separately, but not this method.
-        return tfIdf * Math.sqrt(pageRank);
+        return Math.sqrt(pageRank);
     }
 
+    /**
+     * Returns the k highest-scoring pages for the given query, best first.
+     *
+     * Results are cached, so repeating a recent query is nearly free. Since the cache is
+     * only ever touched while holding the read lock, and cleared while holding the write
+     * lock, it never hands out results from before the index last changed.
+     */
     public IList<Result> getTopKResults(IList<String> query, int k) {
-        IList<Result> results = new DoubleLinkedList<>();
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        String key = resultCacheKey(query, k);
+        this.lock.readLock().lock();
+        try {
+            IList<Result> results = this.resultCache.get(key);
+            if (results == null) {
+                results = this.findTopKResults(query, k);
+                this.resultCache.put(key, results);
+            }
+            // Callers are free to change the list they get, so they each get their own.
+            return copy(results);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the cache of recent query results, mostly so its hit and miss counts can
+     * be reported.
+     */
+    public LruCache<String, IList<Result>> getResultCache() {
+        return this.resultCache;
+    }
 
-        for (WebpageSummary summary: this.pages) {
-            double score = this.computeScore(query, summary.getUri());
-            results.add(new Result(summary, score));
+    /**
+     * Returns the key the results for the given query are cached under. Queries are
+     * already lower-cased words without punctuation or spaces (see WordTokenizer), so
+     * joining them with spaces can't make two different queries look the same.
+     *
+     * The words are kept in order, rather than sorted: reordering a query can change
+     * its scores by a rounding error, and we want cached results to be exactly the
+     * ones we'd compute.
+     */
+    private static String resultCacheKey(IList<String> query, int k) {
+        return k + ":" + String.join(" ", query);
+    }
+
+    private static IList<Result> copy(IList<Result> results) {
+        IList<Result> copy = new DoubleLinkedList<>();
+        for (Result result : results) {
+            copy.add(result);
         }
+        return copy;
+    }
 
-        IList<Result> topK = Searcher.topKSort(k, results);
+    private IList<Result> findTopKResults(IList<String> query, int k) {
+        long start = System.nanoTime();
+        PreparedQuery prepared = this.tfIdfAnalyzer.prepare(query);
+        this.prepareTimes.recordSince(start);
 
+        // The retriever only fully scores the pages that could still make the top k.
+        // Scoring and selection are interleaved (that's how it avoids scoring pages that
+        // can't make it), so they're timed together.
+        start = System.nanoTime();
+        DoubleIntHeap topK = this.retriever.retrieve(prepared, k);
+        this.retrieveTimes.recordSince(start);
+
+        // Only the winners become Result objects. The heap gives them to us from
+        // lowest to highest score, so we build the list back to front.
+        start = System.nanoTime();
         IList<Result> reversed = new DoubleLinkedList<>();
-        for (Result res : topK) {
-            reversed.insert(0, res);
+        while (!topK.isEmpty()) {
+            double score = topK.peekMinKey();
+            int documentId = topK.removeMin();
+            reversed.insert(0, new Result(this.registry.getSummary(documentId), score));
         }
+        this.resultTimes.recordSince(start);
 
         return reversed;
     }
 
-    private ISet<Webpage> collectWebpages(Path root) {
+    private static Path[] listCorpusFiles(Path root) {
         try {
             return Files.walk(root)
                     .filter(Files::isRegularFile)
                     .filter(path -> path.toString().endsWith(".htm") || path.toString().endsWith(".html"))
-                    .map(Path::toUri)
-                    .map(Webpage::load)
-                    .collect(Bridge.toISet());
+                    .toArray(Path[]::new);
         } catch (IOException ex) {
             throw new DataExtractionException("Could not find given root folder", ex);
         }
     }
 
-    private ISet<WebpageSummary> extractWebpageSummaries(ISet<Webpage> pages) {
-        ISet<WebpageSummary> output = new ChainedHashSet<>();
-        for (Webpage page : pages) {
-            output.add(page.getSummary());
+    private ISet<Webpage> collectWebpages(Path root) {
+        long start = System.currentTimeMillis();
+        Path[] files = listCorpusFiles(root);
+        CorpusFingerprint fingerprint = CorpusFingerprint.of(files);
+        this.fingerprint = fingerprint;
+        long end = System.currentTimeMillis() - start;
+        System.out.println("    Found " + files.length + " files (" + (end / 1000.0) + " sec)");
+
+        start = System.currentTimeMillis();
+        Path cacheFile = root.resolve(CORPUS_CACHE_FILE_NAME);
+        ISet<Webpage> webpages = CorpusCache.load(cacheFile, fingerprint);
+        if (webpages != null) {
+            end = System.currentTimeMillis() - start;
+            System.out.println("    Read " + webpages.size() + " pages from cache (" + (end / 1000.0) + " sec)");
+            return webpages;
+        }
+
+        int threads = Math.max(1, Math.min(LOADING_THREAD_COUNT, files.length));
+        LatencyHistogram parseTimes = this.metrics.timer(
+                "search_page_parse_seconds", "Time spent parsing and tokenizing a single webpage.");
+        webpages = threads == 1 ? loadSequentially(files, parseTimes) : loadInParallel(files, threads, parseTimes);
+        end = System.currentTimeMillis() - start;
+        System.out.println("    Parsed " + webpages.size() + " pages using " + threads + " thread(s) ("
+                + (end / 1000.0) + " sec)");
+
+        start = System.currentTimeMillis();
+        CorpusCache.save(cacheFile, fingerprint, webpages);
+        end = System.currentTimeMillis() - start;
+        System.out.println("    Wrote page cache (" + (end / 1000.0) + " sec)");
+        return webpages;
+    }
+
+    private static ISet<Webpage> loadSequentially(Path[] files, LatencyHistogram parseTimes) {
+        return Arrays.stream(files)
+                .map(Path::toUri)
+                .map(uri -> load(uri, parseTimes))
+                .collect(Bridge.toISet());
+    }
+
+    /**
+     * Loads every file using a dedicated pool of the given size.
+     *
+     * Parsing each page (Jsoup plus article extraction) is entirely independent of
+     * every other page, so we can simply hand the files to a parallel stream. We run
+     * that stream inside our own ForkJoinPool rather than the shared common pool so
+     * the number of threads is exactly what was configured.
+     */
+    private static ISet<Webpage> loadInParallel(Path[] files, int threads, LatencyHistogram parseTimes) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> Arrays.stream(files)
+                    .parallel()
+                    .map(Path::toUri)
+                    .map(uri -> load(uri, parseTimes))
+                    .collect(Bridge.toISet())).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataExtractionException("Interrupted while loading webpages", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new DataExtractionException("Could not load webpages", ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Webpage load(URI uri, LatencyHistogram parseTimes) {
+        long start = System.nanoTime();
+        try {
+            return Webpage.loadOriginal(uri);
+        } finally {
+            parseTimes.recordSince(start);
         }
-        return output;
     }
 }
@@ -3,6 +3,10 @@ package search;
 import datastructures.interfaces.IList;
 import search.models.Result;
 import search.SearchEngine;
+import search.misc.Json;
+import search.misc.LatencyHistogram;
+import search.misc.LruCache;
+import search.misc.Metrics;
 import search.misc.WordTokenizer;
 import spark.ModelAndView;
 import spark.Request;
@@ -10,8 +14,23 @@ import spark.Response;
 import spark.Service;
 import spark.template.mustache.MustacheTemplateEngine;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Contains all code to manage and serve our website.
@@ -28,10 +47,47 @@ public class Webapp {
      */
     private static final String TEMPLATE_FILES = "webapp/templates";
 
+    // Searches run on a pool of this many threads, separate from the web server's own.
+    public static int SEARCH_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+    // How many searches may wait for a free search thread. Once this many are waiting,
+    // new searches are turned away with a '503 Service Unavailable' straight away
+    // rather than queueing up behind searches that are already going to be late.
+    public static int SEARCH_QUEUE_SIZE = 64;
+
+    // How long a search may take, queueing included, before we give up on it and
+    // answer with a '503 Service Unavailable'.
+    public static long SEARCH_TIMEOUT_MILLIS = 2000;
+
+    // The most results a single page of '/api/search' may ask for.
+    public static final int API_MAX_LIMIT = 1000;
+
+    // How deep into a query's results '/api/search' will go: 'offset' plus 'limit' can't
+    // be more than this, and results past this many are never returned. Without a cap,
+    // a single request could make the search engine rank (and cache) every page.
+    public static final int API_MAX_RANKING_SIZE = 4096;
+
+    // '/api/search' flushes its output after this many results.
+    private static final int API_RESULTS_PER_CHUNK = 16;
+
     private final String siteName;
     private final SearchEngine engine;
     private final Service http;
 
+    // Compiling a template is far slower than rendering one, and the engine keeps every
+    // template it has compiled, so we only ever make one.
+    private final MustacheTemplateEngine templates;
+
+    private final ThreadPoolExecutor searchPool;
+
+    // Recorded alongside the search engine's own metrics.
+    private final Metrics metrics;
+    private final LatencyHistogram searchLatencies;
+    private final LatencyHistogram tokenizeTimes;
+    private final LatencyHistogram renderTimes;
+    private final AtomicLong rejectedSearches;
+    private final AtomicLong timedOutSearches;
+
     /**
      * Creates a new instance of this class.
      *
@@ -42,12 +98,45 @@ public class Webapp {
     public Webapp(SearchEngine engine, String siteName, int port) {
         this.engine = engine;
         this.siteName = siteName;
+        this.templates = new MustacheTemplateEngine(TEMPLATE_FILES);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.searchPool = new ThreadPoolExecutor(
+                SEARCH_THREAD_COUNT,
+                SEARCH_THREAD_COUNT,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(SEARCH_QUEUE_SIZE),
+                task -> {
+                    Thread thread = new Thread(task, "search-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.metrics = engine.getMetrics();
+        this.searchLatencies = this.metrics.timer(
+                "webapp_search_seconds", "Time spent on a search, including waiting for a search thread.");
+        this.tokenizeTimes = this.metrics.timer(
+                "webapp_query_tokenize_seconds", "Time spent splitting a query into words.");
+        this.renderTimes = this.metrics.timer(
+                "webapp_render_seconds", "Time spent rendering a page from its template.");
+        this.rejectedSearches = this.metrics.counter(
+                "webapp_search_rejected_total",
+                "Searches turned away because the queue of searches waiting for a search thread was full.");
+        this.timedOutSearches = this.metrics.counter(
+                "webapp_search_timed_out_total", "Searches given up on for taking too long.");
+        this.metrics.gauge("webapp_search_queue_length", "Searches waiting for a search thread.",
+                () -> this.searchPool.getQueue().size());
+        this.metrics.gauge("webapp_search_active_threads", "Search threads currently running a search.",
+                () -> this.searchPool.getActiveCount());
 
         this.http = Service.ignite()
                 .staticFileLocation(STATIC_FILES)
                 .port(port);
         this.http.get("/", this::handleMain);
         this.http.get("/search", this::handleSearch);
+        this.http.get("/api/search", this::handleApiSearch);
+        this.http.get("/stats", this::handleStats);
+        this.http.get("/metrics", this::handleMetrics);
     }
 
     /**
@@ -76,8 +165,13 @@ public class Webapp {
         int numResults = Integer.parseInt(req.queryParamOrDefault("num_results", "20"));
 
         // Perform core search
-        IList<String> queryTerms = WordTokenizer.extract(query);
-        IList<Result> results = this.engine.getTopKResults(queryTerms, numResults);
+        IList<String> queryTerms = this.tokenize(query);
+        IList<Result> results = this.search(queryTerms, numResults);
+        if (results == null) {
+            res.status(503);
+            res.header("Retry-After", "1");
+            return "The search engine is too busy right now. Please try again in a moment.";
+        }
 
         // Render results
         Map<String, Object> model = new HashMap<>();
@@ -88,8 +182,195 @@ public class Webapp {
         return this.render("search.mustache", model);
     }
 
+    /**
+     * Handles queries from programs rather than people, answering with JSON:
+     *
+     *     {"query": "...",
+     *      "results": [{"uri": "...", "title": "...", "blurb": "...", "score": 0.25}, ...],
+     *      "next": {"after_score": 0.125, "offset": 1}}
+     *
+     * Parameters are 'query', 'limit' (the number of results to return, 20 by default),
+     * and where to start:
+     *
+     * - With just 'offset', we skip that many of the best results.
+     * - With 'after_score' as well, we skip every result scoring higher than it, and then
+     *   'offset' more results that score exactly that. This is what 'next' holds: pass
+     *   it back to get the following page. Unlike a plain offset, it doesn't skip or
+     *   repeat results when pages are added or removed between requests, unless they
+     *   tie with the last result on the previous page.
+     *
+     * Only the best API_MAX_RANKING_SIZE results can be paged through: 'next' is null on
+     * the last page, or once that many results have been returned. Results are streamed
+     * as they're written, so the response uses chunked transfer encoding instead of a
+     * content length.
+     */
+    private String handleApiSearch(Request req, Response res) throws IOException {
+        res.type("application/json");
+        String query = req.queryParams("query");
+        int limit;
+        int offset;
+        double afterScore;
+        try {
+            limit = Integer.parseInt(req.queryParamOrDefault("limit", "20"));
+            offset = Integer.parseInt(req.queryParamOrDefault("offset", "0"));
+            afterScore = Double.parseDouble(req.queryParamOrDefault("after_score", "NaN"));
+        } catch (NumberFormatException ex) {
+            res.status(400);
+            return "{\"error\": \"'limit', 'offset' and 'after_score' must be numbers\"}";
+        }
+        if (query == null || limit < 0 || limit > API_MAX_LIMIT || offset < 0
+                || offset + (long) limit > API_MAX_RANKING_SIZE) {
+            res.status(400);
+            return "{\"error\": \"'query' is required, 'limit' must be between 0 and "
+                    + API_MAX_LIMIT + ", 'offset' can't be negative, and 'offset' plus 'limit' can't be more than "
+                    + API_MAX_RANKING_SIZE + "\"}";
+        }
+
+        IList<String> queryTerms = this.tokenize(query);
+        Result[] ranking = ApiPaging.rank(k -> {
+            IList<Result> results = this.search(queryTerms, k);
+            return results == null ? null : toArray(results);
+        }, afterScore, offset, limit);
+        if (ranking == null) {
+            res.status(503);
+            res.header("Retry-After", "1");
+            return "{\"error\": \"The search engine is too busy right now\"}";
+        }
+        int start = ApiPaging.findStart(ranking, afterScore, offset);
+        int end = Math.min(start + limit, ranking.length);
+        this.writeResults(res.raw(), query, ranking, start, end);
+        return "";
+    }
+
+    /**
+     * Streams the results from position 'start' up to 'end' in the ranking as JSON,
+     * along with the cursor for the page after them, if there is one.
+     */
+    private void writeResults(
+            HttpServletResponse raw, String query, Result[] ranking, int start, int end) throws IOException {
+        raw.setStatus(200);
+        raw.setContentType("application/json");
+        raw.setCharacterEncoding("UTF-8");
+        Writer out = new OutputStreamWriter(raw.getOutputStream(), StandardCharsets.UTF_8);
+        out.write("{\"query\": " + Json.quote(query) + ",\n \"results\": [");
+        for (int i = start; i < end; i++) {
+            Result result = ranking[i];
+            out.write(i == start ? "\n  " : ",\n  ");
+            out.write("{\"uri\": " + Json.quote(result.getUri().toString())
+                    + ", \"title\": " + Json.quote(result.getTitle())
+                    + ", \"blurb\": " + Json.quote(result.getBlurb())
+                    + ", \"score\": " + Json.number(result.getScore()) + "}");
+            if ((i - start + 1) % API_RESULTS_PER_CHUNK == 0) {
+                out.flush();
+                raw.flushBuffer();
+            }
+        }
+        out.write("],\n \"next\": ");
+        int nextOffset = ApiPaging.nextOffset(ranking, start, end);
+        if (nextOffset >= 0) {
+            out.write("{\"after_score\": " + Json.number(ranking[end - 1].getScore())
+                    + ", \"offset\": " + nextOffset + "}");
+        } else {
+            out.write("null");
+        }
+        out.write("}\n");
+        out.flush();
+    }
+
+    private static Result[] toArray(IList<Result> results) {
+        Result[] array = new Result[results.size()];
+        int i = 0;
+        for (Result result : results) {
+            array[i] = result;
+            i++;
+        }
+        return array;
+    }
+
+    /**
+     * Runs a search on the search pool, and returns its results, or null if the pool
+     * was too busy to take it or it took longer than SEARCH_TIMEOUT_MILLIS.
+     *
+     * A search that times out is cancelled if it hasn't started yet; one that has
+     * started runs to completion, but nobody waits for it.
+     */
+    private IList<Result> search(IList<String> queryTerms, int numResults) {
+        long start = System.nanoTime();
+        Future<IList<Result>> future;
+        try {
+            future = this.searchPool.submit(() -> this.engine.getTopKResults(queryTerms, numResults));
+        } catch (RejectedExecutionException ex) {
+            this.rejectedSearches.incrementAndGet();
+            return null;
+        }
+
+        try {
+            return future.get(SEARCH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(false);
+            this.timedOutSearches.incrementAndGet();
+            return null;
+        } catch (InterruptedException ex) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            this.searchLatencies.recordSince(start);
+        }
+    }
+
+    /**
+     * Reports how quickly searches are being answered, and how many had to be turned
+     * away, as JSON. Latencies are in milliseconds, and cover every search since the
+     * server started that made it onto the search pool.
+     */
+    private String handleStats(Request req, Response res) {
+        LruCache<?, ?> cache = this.engine.getResultCache();
+        res.type("application/json");
+        return String.format(
+                Locale.ROOT,
+                "{\"searches\": %d, \"rejected\": %d, \"timed_out\": %d, "
+                        + "\"p50_ms\": %.3f, \"p99_ms\": %.3f, \"queued\": %d, "
+                        + "\"cache_hits\": %d, \"cache_misses\": %d}",
+                this.searchLatencies.count(),
+                this.rejectedSearches.get(),
+                this.timedOutSearches.get(),
+                this.searchLatencies.percentile(0.5),
+                this.searchLatencies.percentile(0.99),
+                this.searchPool.getQueue().size(),
+                cache.getHits(),
+                cache.getMisses());
+    }
+
+    /**
+     * Reports every metric we and the search engine record, in the Prometheus text
+     * format, so a Prometheus server can scrape it.
+     */
+    private String handleMetrics(Request req, Response res) {
+        res.type("text/plain; version=0.0.4; charset=utf-8");
+        return this.metrics.toPrometheusText();
+    }
+
+    private IList<String> tokenize(String query) {
+        long start = System.nanoTime();
+        try {
+            return WordTokenizer.extract(query);
+        } finally {
+            this.tokenizeTimes.recordSince(start);
+        }
+    }
+
     private String render(String templateName, Map<String, Object> params) {
-        return new MustacheTemplateEngine(TEMPLATE_FILES).render(
-                new ModelAndView(params, templateName));
+        long start = System.nanoTime();
+        try {
+            return this.templates.render(new ModelAndView(params, templateName));
+        } finally {
+            this.renderTimes.recordSince(start);
+        }
     }
 }
@@ -0,0 +1,30 @@
+package search.analyzers;
+
+/**
+ * The ways PageRankSolver can iterate towards the final page ranks. Every strategy
+ * converges to the same ranks; they differ in how many iterations that takes.
+ */
+public enum ConvergenceStrategy {
+    /**
+     * Plain power iteration: every iteration computes each page's new rank entirely
+     * from the previous iteration's ranks. This is what the spec describes, and the
+     * only strategy that can use more than one thread for the whole iteration.
+     */
+    JACOBI,
+
+    /**
+     * Updates ranks in place, so pages later in an iteration already see the new ranks
+     * of pages earlier in the same iteration. This usually needs noticeably fewer
+     * iterations, but each iteration must run on a single thread.
+     */
+    GAUSS_SEIDEL,
+
+    /**
+     * Power iteration, plus Aitken extrapolation every few iterations: the ranks jump
+     * straight to the limit the last three iterations are heading for. This helps most
+     * on slowly-mixing graphs (such as clusters of pages with few links between them)
+     * where plain power iteration crawls. It isn't guaranteed to beat JACOBI, though: a
+     * jump can overshoot, making the next few iterations change the ranks by more.
+     */
+    AITKEN
+}
@@ -0,0 +1,167 @@
+package search.analyzers;
+
+import datastructures.interfaces.IList;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * The links between a fixed set of webpages, as an unweighted, directed graph whose
+ * nodes are numbered from 0 up to (but not including) the number of pages.
+ *
+ * Both directions are stored in compressed sparse row form: the pages that node 'v'
+ * links to are at positions outOffsets[v] up to outOffsets[v + 1] of outTargets, and
+ * the pages linking to 'v' are at positions inOffsets[v] up to inOffsets[v + 1] of
+ * inSources. Both lists are sorted by id and contain no duplicates.
+ *
+ * Just like the original adjacency-list graph, links to pages outside the set and
+ * links from a page to itself are left out.
+ */
+public class LinkGraph {
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inSources;
+
+    private LinkGraph(int[] outOffsets, int[] outTargets) {
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+
+        // Transpose the out-links. Visiting sources in increasing order means every
+        // in-link list comes out sorted without any extra work.
+        int numNodes = outOffsets.length - 1;
+        this.inOffsets = new int[numNodes + 1];
+        for (int target : outTargets) {
+            this.inOffsets[target + 1]++;
+        }
+        for (int v = 0; v < numNodes; v++) {
+            this.inOffsets[v + 1] += this.inOffsets[v];
+        }
+        this.inSources = new int[outTargets.length];
+        int[] next = Arrays.copyOf(this.inOffsets, numNodes);
+        for (int u = 0; u < numNodes; u++) {
+            for (int i = outOffsets[u]; i < outOffsets[u + 1]; i++) {
+                int target = outTargets[i];
+                this.inSources[next[target]] = u;
+                next[target]++;
+            }
+        }
+    }
+
+    /**
+     * Builds a graph where linksByNode[u] lists every link on page 'u', and 'nodeIds'
+     * returns the node a link points to, or -1 if it points to a page not in the graph.
+     */
+    public static LinkGraph of(URI[][] linksByNode, ToIntFunction<URI> nodeIds) {
+        int[] outOffsets = new int[linksByNode.length + 1];
+        int[] outTargets = new int[16];
+        int[] scratch = new int[16];
+
+        int next = 0;
+        for (int u = 0; u < linksByNode.length; u++) {
+            int count = 0;
+            for (URI link : linksByNode[u]) {
+                int target = nodeIds.applyAsInt(link);
+                // Self-links don't count as votes for a page's importance.
+                if (target >= 0 && target != u) {
+                    if (count == scratch.length) {
+                        scratch = Arrays.copyOf(scratch, count * 2);
+                    }
+                    scratch[count] = target;
+                    count++;
+                }
+            }
+            Arrays.sort(scratch, 0, count);
+
+            if (next + count > outTargets.length) {
+                outTargets = Arrays.copyOf(outTargets, Math.max(outTargets.length * 2, next + count));
+            }
+            for (int i = 0; i < count; i++) {
+                if (i == 0 || scratch[i] != scratch[i - 1]) {
+                    outTargets[next] = scratch[i];
+                    next++;
+                }
+            }
+            outOffsets[u + 1] = next;
+        }
+        return new LinkGraph(outOffsets, Arrays.copyOf(outTargets, next));
+    }
+
+    /**
+     * Copies the given list of links into an array.
+     */
+    public static URI[] toArray(IList<URI> links) {
+        URI[] output = new URI[links.size()];
+        int i = 0;
+        for (URI link : links) {
+            output[i] = link;
+            i++;
+        }
+        return output;
+    }
+
+    /**
+     * Returns the number of pages in this graph. Ids range from 0 up to (but not
+     * including) this number.
+     */
+    public int size() {
+        return this.outOffsets.length - 1;
+    }
+
+    /**
+     * Returns the total number of links in this graph.
+     */
+    public int numLinks() {
+        return this.outTargets.length;
+    }
+
+    /**
+     * Returns the number of distinct pages the given page links to.
+     */
+    public int getOutDegree(int node) {
+        return this.outOffsets[node + 1] - this.outOffsets[node];
+    }
+
+    /**
+     * Returns the position of the first out-link of the given page; see getOutLink(...).
+     */
+    public int getOutLinkStart(int node) {
+        return this.outOffsets[node];
+    }
+
+    /**
+     * Returns the position just past the last out-link of the given page.
+     */
+    public int getOutLinkEnd(int node) {
+        return this.outOffsets[node + 1];
+    }
+
+    /**
+     * Returns the target of the out-link in the given position.
+     */
+    public int getOutLink(int position) {
+        return this.outTargets[position];
+    }
+
+    /**
+     * Returns the position of the first in-link of the given page; see getInLink(...).
+     */
+    public int getInLinkStart(int node) {
+        return this.inOffsets[node];
+    }
+
+    /**
+     * Returns the position just past the last in-link of the given page.
+     */
+    public int getInLinkEnd(int node) {
+        return this.inOffsets[node + 1];
+    }
+
+    /**
+     * Returns the source of the in-link in the given position.
+     */
+    public int getInLink(int position) {
+        return this.inSources[position];
+    }
+}
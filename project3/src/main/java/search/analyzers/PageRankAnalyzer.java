@@ -1,19 +1,43 @@
 package search.analyzers;
 
-import datastructures.interfaces.IDictionary;
 import datastructures.interfaces.ISet;
-import misc.exceptions.NotYetImplementedException;
+import search.misc.BinaryIO;
+import search.models.DocumentIdRegistry;
 import search.models.Webpage;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
 
 /**
  * This class is responsible for computing the 'page rank' of all available webpages.
  * If a webpage has many different links to it, it should have a higher page rank.
  * See the spec for more details.
+ *
+ * Pages can be added or removed after construction. Rather than starting over, each
+ * update starts iterating from the ranks we already had, so a small change to a
+ * large graph only takes as many iterations as the change needs to settle.
  */
 public class PageRankAnalyzer {
-    private IDictionary<URI, Double> pageRanks;
+    private DocumentIdRegistry registry;
+    private double decay;
+    private double epsilon;
+    private int limit;
+    private int threads;
+    private ConvergenceStrategy strategy;
+
+    // Every link on every page we know about, indexed by the page's id within
+    // 'registry'. Pages we don't know about (for example, pages that have been
+    // removed) have no entry. We keep the links as URIs rather than ids, so a link to
+    // a page we haven't seen yet starts counting as soon as that page is added.
+    private URI[][] links;
+
+    // The page rank of every webpage, indexed by its id within 'registry'. Pages we
+    // don't know about have a rank of zero.
+    private double[] pageRanks;
+    private int iterationCount;
 
     /**
      * Computes a graph representing the internet and computes the page rank of all
@@ -28,63 +52,231 @@ public class PageRankAnalyzer {
      *                  page rank never converges.
      */
     public PageRankAnalyzer(ISet<Webpage> webpages, double decay, double epsilon, int limit) {
-        // Implementation note: We have commented these method calls out so your
-        // search engine doesn't immediately crash when you try running it for the
-        // first time.
-        //
-        // You should uncomment these lines when you're ready to begin working
-        // on this class.
-
-        // Step 1: Make a graph representing the 'internet'
-        //IDictionary<URI, ISet<URI>> graph = this.makeGraph(webpages);
+        this(webpages, DocumentIdRegistry.of(webpages), decay, epsilon, limit);
+    }
 
-        // Step 2: Use this graph to compute the page rank for each webpage
-        //this.pageRanks = this.makePageRanks(graph, decay, limit, epsilon);
+    /**
+     * Computes the page rank of all available webpages, identifying each webpage by its
+     * id within the given registry. See the other constructor for what each parameter means.
+     *
+     * Precondition: every given webpage has been registered.
+     */
+    public PageRankAnalyzer(ISet<Webpage> webpages, DocumentIdRegistry registry,
+                            double decay, double epsilon, int limit) {
+        this(webpages, registry, decay, epsilon, limit, 1);
+    }
 
-        // Note: we don't store the graph as a field: once we've computed the
-        // page ranks, we no longer need it!
+    /**
+     * Computes the page rank of all available webpages using the given number of threads.
+     * The ranks are exactly the same no matter how many threads are used.
+     *
+     * See the other constructors for what the remaining parameters mean.
+     */
+    public PageRankAnalyzer(ISet<Webpage> webpages, DocumentIdRegistry registry,
+                            double decay, double epsilon, int limit, int threads) {
+        this(webpages, registry, decay, epsilon, limit, threads, ConvergenceStrategy.JACOBI);
     }
 
     /**
-     * This method converts a set of webpages into an unweighted, directed graph,
-     * in adjacency list form.
+     * Computes the page rank of all available webpages, iterating towards the final
+     * ranks using the given strategy. Every strategy produces the same ranks, give or
+     * take epsilon; they only differ in how many iterations they take to get there.
+     * GAUSS_SEIDEL always runs on a single thread.
      *
-     * You may assume that each webpage can be uniquely identified by its URI.
+     * See the other constructors for what the remaining parameters mean.
+     */
+    public PageRankAnalyzer(ISet<Webpage> webpages, DocumentIdRegistry registry,
+                            double decay, double epsilon, int limit, int threads,
+                            ConvergenceStrategy strategy) {
+        this(registry, decay, epsilon, limit, threads, strategy);
+        this.storeLinks(webpages);
+        this.updatePageRanks(false);
+    }
+
+    private PageRankAnalyzer(DocumentIdRegistry registry, double decay, double epsilon, int limit, int threads,
+                             ConvergenceStrategy strategy) {
+        this.registry = registry;
+        this.decay = decay;
+        this.epsilon = epsilon;
+        this.limit = limit;
+        this.threads = threads;
+        this.strategy = strategy;
+        this.links = new URI[0][];
+        this.pageRanks = new double[0];
+    }
+
+    /**
+     * Adds the given webpages, registering any that haven't been registered yet, and
+     * updates every page rank. If we already know about one of the pages, its links
+     * are replaced with the given page's links.
+     */
+    public void addPages(ISet<Webpage> webpages) {
+        for (Webpage page : webpages) {
+            this.registry.register(page);
+        }
+        this.storeLinks(webpages);
+        this.updatePageRanks(true);
+    }
+
+    /**
+     * Removes the webpages with the given URIs and updates every page rank. Removed
+     * pages have a page rank of zero, and links to them no longer count.
      *
-     * Note that a webpage may contain links to other webpages that are *not*
-     * included within set of webpages you were given. You should omit these
-     * links from your graph: we want the final graph we build to be
-     * entirely "self-contained".
+     * Precondition: every given URI is still registered.
      */
-    private IDictionary<URI, ISet<URI>> makeGraph(ISet<Webpage> webpages) {
-        throw new NotYetImplementedException();
+    public void removePages(ISet<URI> pageUris) {
+        for (URI uri : pageUris) {
+            int id = this.registry.getId(uri);
+            if (id < this.links.length) {
+                this.links[id] = null;
+            }
+        }
+        this.updatePageRanks(true);
+    }
+
+    private void storeLinks(ISet<Webpage> webpages) {
+        if (this.links.length < this.registry.size()) {
+            this.links = Arrays.copyOf(this.links, this.registry.size());
+        }
+        for (Webpage page : webpages) {
+            this.links[this.registry.getId(page.getUri())] = LinkGraph.toArray(page.getLinks());
+        }
     }
 
     /**
-     * Computes the page ranks for all webpages in the graph.
+     * Recomputes the page rank of every page we know about.
      *
-     * Precondition: assumes 'this.graphs' has previously been initialized.
+     * The graph only contains those pages, renumbered so they're consecutive: node 'n'
+     * of the graph is the page with id idOfNode[n].
      *
-     * @param decay     Represents the "decay" factor when computing page rank (see spec).
-     * @param epsilon   When the difference in page ranks is less then or equal to this number,
-     *                  stop iterating.
-     * @param limit     The maximum number of iterations we spend computing page rank. This value
-     *                  is meant as a safety valve to prevent us from infinite looping in case our
-     *                  page rank never converges.
+     * @param warmStart  if true, start iterating from the current ranks instead of
+     *                   giving every page the same rank
      */
-    private IDictionary<URI, Double> makePageRanks(IDictionary<URI, ISet<URI>> graph,
-                                                   double decay,
-                                                   int limit,
-                                                   double epsilon) {
-        // Step 1: The initialize step should go here
+    private void updatePageRanks(boolean warmStart) {
+        int[] nodeOfId = new int[this.links.length];
+        int[] idOfNode = new int[this.links.length];
+        int numNodes = 0;
+        for (int id = 0; id < this.links.length; id++) {
+            nodeOfId[id] = this.links[id] == null ? -1 : numNodes;
+            if (this.links[id] != null) {
+                idOfNode[numNodes] = id;
+                numNodes++;
+            }
+        }
+        URI[][] linksByNode = new URI[numNodes][];
+        for (int node = 0; node < numNodes; node++) {
+            linksByNode[node] = this.links[idOfNode[node]];
+        }
+
+        // Step 1: Make a graph representing the 'internet'
+        LinkGraph graph = LinkGraph.of(linksByNode, link -> {
+            int id = this.registry.getIdOrDefault(link, -1);
+            return id >= 0 && id < nodeOfId.length ? nodeOfId[id] : -1;
+        });
 
-        for (int i = 0; i < limit; i++) {
-            // Step 2: The update step should go here
+        // Step 2: Use this graph to compute the page rank for each webpage
+        //
+        // Note: we don't store the graph as a field: it's cheap to rebuild from the
+        // links whenever the pages change.
+        PageRankSolver solver = new PageRankSolver(
+                graph, this.decay, this.epsilon, this.limit, this.threads, this.strategy);
+        double[] nodeRanks = warmStart ? solver.solve(this.warmStartRanks(idOfNode, numNodes)) : solver.solve();
+        this.iterationCount = solver.getIterationCount();
+
+        this.pageRanks = new double[this.links.length];
+        for (int node = 0; node < numNodes; node++) {
+            this.pageRanks[idOfNode[node]] = nodeRanks[node];
+        }
+    }
 
-            // Step 3: the convergence step should go here.
-            // Return early if we've converged.
+    /**
+     * Returns the ranks to start iterating from after pages were added or removed: the
+     * current rank of every page we already had, and the average rank for every new
+     * page, scaled so they add up to 1 again.
+     */
+    private double[] warmStartRanks(int[] idOfNode, int numNodes) {
+        double[] ranks = new double[numNodes];
+        double total = 0.0;
+        for (int node = 0; node < numNodes; node++) {
+            int id = idOfNode[node];
+            // Every page we've computed a rank for has a positive rank.
+            double rank = id < this.pageRanks.length ? this.pageRanks[id] : 0.0;
+            ranks[node] = rank > 0.0 ? rank : 1.0 / numNodes;
+            total += ranks[node];
         }
-        throw new NotYetImplementedException();
+        for (int node = 0; node < numNodes; node++) {
+            ranks[node] /= total;
+        }
+        return ranks;
+    }
+
+    /**
+     * Returns the number of iterations the most recent computation took, whether
+     * that was the constructor or an update. Useful for comparing strategies.
+     */
+    public int getIterationCount() {
+        return this.iterationCount;
+    }
+
+    /**
+     * Writes the page rank and links of every webpage, along with the settings used to
+     * compute them, so the analyzer can be restored by readFrom(...) and updated later.
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeDouble(this.decay);
+        output.writeDouble(this.epsilon);
+        output.writeInt(this.limit);
+        output.writeInt(this.threads);
+        BinaryIO.writeString(output, this.strategy.name());
+        BinaryIO.writeDoubleArray(output, this.pageRanks);
+
+        // Links to registered pages are written as ids: they're both smaller and
+        // faster to read back than the URI itself.
+        output.writeInt(this.links.length);
+        for (URI[] pageLinks : this.links) {
+            output.writeInt(pageLinks == null ? -1 : pageLinks.length);
+            if (pageLinks == null) {
+                continue;
+            }
+            for (URI link : pageLinks) {
+                int id = this.registry.getIdOrDefault(link, -1);
+                output.writeInt(id);
+                if (id < 0) {
+                    BinaryIO.writeString(output, link.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an analyzer written by writeTo(...).
+     *
+     * Precondition: 'registry' assigns every page the same id as the registry the
+     *               analyzer was originally built with.
+     */
+    public static PageRankAnalyzer readFrom(DataInput input, DocumentIdRegistry registry) throws IOException {
+        PageRankAnalyzer analyzer = new PageRankAnalyzer(
+                registry, input.readDouble(), input.readDouble(), input.readInt(), input.readInt(),
+                ConvergenceStrategy.valueOf(BinaryIO.readString(input)));
+        analyzer.pageRanks = BinaryIO.readDoubleArray(input);
+
+        URI[][] links = new URI[input.readInt()][];
+        if (analyzer.pageRanks.length != registry.size() || links.length != registry.size()) {
+            throw new IOException("Page rank data doesn't match the registry it was read with");
+        }
+        for (int id = 0; id < links.length; id++) {
+            int numLinks = input.readInt();
+            if (numLinks < 0) {
+                continue;
+            }
+            links[id] = new URI[numLinks];
+            for (int i = 0; i < numLinks; i++) {
+                int target = input.readInt();
+                links[id][i] = target >= 0 ? registry.getUri(target) : URI.create(BinaryIO.readString(input));
+            }
+        }
+        analyzer.links = links;
+        return analyzer;
     }
 
     /**
@@ -94,8 +286,14 @@ public class PageRankAnalyzer {
      *               webpages given to the constructor.
      */
     public double computePageRank(URI pageUri) {
-        // Implementation note: this method should be very simple: just one line!
-        // TODO: Add working code here
-        return 0.0;
+        return this.computePageRank(this.registry.getId(pageUri));
+    }
+
+    /**
+     * Returns the page rank of the webpage with the given id, or zero if we don't know
+     * about that webpage.
+     */
+    public double computePageRank(int documentId) {
+        return documentId < this.pageRanks.length ? this.pageRanks[documentId] : 0.0;
     }
 }
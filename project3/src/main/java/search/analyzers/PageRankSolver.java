@@ -0,0 +1,364 @@
+package search.analyzers;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the PageRank power iteration over a LinkGraph.
+ *
+ * Each iteration 'pulls' every page's new rank from the pages linking to it, so each
+ * page's rank is written by exactly one thread and no synchronization is needed
+ * beyond waiting for the iteration to finish. A page with no outgoing links behaves
+ * as if it linked to every page; rather than adding that to every page separately,
+ * we total it up once per iteration and add the same share to every page.
+ *
+ * Pages are processed in fixed-size chunks, which are spread across a fork-join pool
+ * when more than one thread is requested. The chunks don't depend on the number of
+ * threads, and the per-chunk partial results are always combined in chunk order, so
+ * every thread count produces exactly the same ranks.
+ *
+ * See ConvergenceStrategy for the different ways we can iterate.
+ */
+public class PageRankSolver {
+    private static final int CHUNK_SIZE = 2048;
+
+    // With the AITKEN strategy, we extrapolate once every this many iterations.
+    private static final int EXTRAPOLATION_INTERVAL = 10;
+
+    // We only extrapolate when the squared cosine of the angle between the last two
+    // steps is at least this; see extrapolate(...).
+    private static final double MIN_STEP_ALIGNMENT = 0.99;
+
+    private final LinkGraph graph;
+    private final double decay;
+    private final double epsilon;
+    private final int limit;
+    private final int threads;
+    private final ConvergenceStrategy strategy;
+    private int iterationCount;
+
+    /**
+     * @param decay     Represents the "decay" factor when computing page rank (see spec).
+     * @param epsilon   When the difference in page ranks is less then or equal to this number,
+     *                  stop iterating.
+     * @param limit     The maximum number of iterations we spend computing page rank.
+     * @param threads   The number of threads to use; 1 runs everything on the calling thread.
+     * @param strategy  How to iterate towards the final ranks.
+     */
+    public PageRankSolver(LinkGraph graph, double decay, double epsilon, int limit, int threads,
+                          ConvergenceStrategy strategy) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread");
+        }
+        this.graph = graph;
+        this.decay = decay;
+        this.epsilon = epsilon;
+        this.limit = limit;
+        this.threads = threads;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Computes the page rank of every page in the graph, indexed by id, starting from
+     * every page having the same rank.
+     */
+    public double[] solve() {
+        double[] ranks = new double[this.graph.size()];
+        Arrays.fill(ranks, 1.0 / ranks.length);
+        return this.solve(ranks);
+    }
+
+    /**
+     * Computes the page rank of every page in the graph, indexed by id, starting from
+     * the given ranks (which should add up to 1).
+     *
+     * Starting from the ranks of a slightly different graph, such as the same pages
+     * before a few were added or removed, usually takes far fewer iterations than
+     * starting from scratch. The given array is not modified.
+     */
+    public double[] solve(double[] initialRanks) {
+        if (initialRanks.length != this.graph.size()) {
+            throw new IllegalArgumentException("Need exactly one initial rank per page");
+        }
+        double[] ranks = Arrays.copyOf(initialRanks, initialRanks.length);
+        this.iterationCount = 0;
+        if (this.strategy == ConvergenceStrategy.GAUSS_SEIDEL) {
+            return this.solveGaussSeidel(ranks);
+        }
+
+        ForkJoinPool pool = this.threads > 1 && ranks.length > CHUNK_SIZE ? new ForkJoinPool(this.threads) : null;
+        try {
+            return this.solveJacobi(ranks, pool);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private double[] solveJacobi(double[] ranks, ForkJoinPool pool) {
+        int numPages = ranks.length;
+        int numChunks = (numPages + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        double[] newRanks = new double[numPages];
+        double[] olderRanks = this.strategy == ConvergenceStrategy.AITKEN ? new double[numPages] : null;
+
+        // The rank each page passes along every one of its outgoing links.
+        double[] shares = new double[numPages];
+        double[] chunkSums = new double[numChunks];
+        double[] chunkDeltas = new double[numChunks];
+
+        for (int i = 0; i < this.limit; i++) {
+            this.iterationCount++;
+            double[] current = ranks;
+            double[] next = newRanks;
+
+            // Before it's overwritten, 'next' holds the ranks from two iterations ago.
+            boolean extrapolate = olderRanks != null && this.iterationCount % EXTRAPOLATION_INTERVAL == 0;
+            if (extrapolate) {
+                System.arraycopy(next, 0, olderRanks, 0, numPages);
+            }
+
+            runChunks(pool, numChunks, chunk -> {
+                chunkSums[chunk] = this.computeShares(current, shares, chunk);
+            });
+            double base = this.base(sumInOrder(chunkSums), numPages);
+
+            runChunks(pool, numChunks, chunk -> {
+                chunkDeltas[chunk] = this.pullRanks(base, shares, current, next, chunk);
+            });
+            double maxDelta = 0.0;
+            for (double chunkDelta : chunkDeltas) {
+                maxDelta = Math.max(maxDelta, chunkDelta);
+            }
+
+            ranks = next;
+            newRanks = current;
+            // We've converged once no page's rank changed by more than epsilon.
+            if (maxDelta <= this.epsilon) {
+                break;
+            }
+
+            if (extrapolate) {
+                this.extrapolate(pool, numChunks, olderRanks, current, next);
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Iterates in place, always using the most recent rank of every page.
+     *
+     * Pages with no outgoing links share their rank with every page, so whenever one
+     * of their ranks changes, so does the amount every later page receives; we keep a
+     * running total rather than recomputing it. Both the running total and the shares
+     * are recomputed from scratch at the start of every iteration, so rounding errors
+     * can't build up across iterations.
+     *
+     * Unlike power iteration, an in-place sweep doesn't keep the ranks adding up to 1,
+     * and left alone the total only creeps back towards 1 at a rate set by the decay
+     * factor. So we scale the ranks back after every sweep, and measure how much each
+     * rank changed after scaling.
+     */
+    private double[] solveGaussSeidel(double[] ranks) {
+        int numPages = ranks.length;
+        int numChunks = (numPages + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        double[] shares = new double[numPages];
+        double[] previous = new double[numPages];
+
+        for (int i = 0; i < this.limit; i++) {
+            this.iterationCount++;
+            System.arraycopy(ranks, 0, previous, 0, numPages);
+            double danglingRank = 0.0;
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                danglingRank += this.computeShares(ranks, shares, chunk);
+            }
+
+            double total = 0.0;
+            for (int v = 0; v < numPages; v++) {
+                double rank = this.base(danglingRank, numPages);
+                for (int j = this.graph.getInLinkStart(v); j < this.graph.getInLinkEnd(v); j++) {
+                    rank += shares[this.graph.getInLink(j)];
+                }
+                int outDegree = this.graph.getOutDegree(v);
+                if (outDegree == 0) {
+                    danglingRank += rank - ranks[v];
+                } else {
+                    shares[v] = this.decay * rank / outDegree;
+                }
+                ranks[v] = rank;
+                total += rank;
+            }
+
+            double maxDelta = 0.0;
+            for (int v = 0; v < numPages; v++) {
+                ranks[v] /= total;
+                maxDelta = Math.max(maxDelta, Math.abs(ranks[v] - previous[v]));
+            }
+            if (maxDelta <= this.epsilon) {
+                break;
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Returns the number of iterations the most recent call to solve(...) took.
+     */
+    public int getIterationCount() {
+        return this.iterationCount;
+    }
+
+    /**
+     * Returns the rank every page receives no matter which pages link to it: its share
+     * of the random jumps, plus its share of the rank of pages with no outgoing links.
+     */
+    private double base(double danglingRank, int numPages) {
+        return (1.0 - this.decay) / numPages + this.decay * danglingRank / numPages;
+    }
+
+    /**
+     * Fills in the share of every page in the given chunk that has outgoing links,
+     * and returns the total rank of the pages in the chunk that don't.
+     */
+    private double computeShares(double[] ranks, double[] shares, int chunk) {
+        double danglingRank = 0.0;
+        int end = Math.min(this.graph.size(), (chunk + 1) * CHUNK_SIZE);
+        for (int u = chunk * CHUNK_SIZE; u < end; u++) {
+            int outDegree = this.graph.getOutDegree(u);
+            if (outDegree == 0) {
+                danglingRank += ranks[u];
+            } else {
+                shares[u] = this.decay * ranks[u] / outDegree;
+            }
+        }
+        return danglingRank;
+    }
+
+    /**
+     * Computes the new rank of every page in the given chunk, and returns the biggest
+     * change in any of their ranks.
+     */
+    private double pullRanks(double base, double[] shares, double[] ranks, double[] newRanks, int chunk) {
+        double maxDelta = 0.0;
+        int end = Math.min(this.graph.size(), (chunk + 1) * CHUNK_SIZE);
+        for (int v = chunk * CHUNK_SIZE; v < end; v++) {
+            double rank = base;
+            for (int j = this.graph.getInLinkStart(v); j < this.graph.getInLinkEnd(v); j++) {
+                rank += shares[this.graph.getInLink(j)];
+            }
+            newRanks[v] = rank;
+            maxDelta = Math.max(maxDelta, Math.abs(rank - ranks[v]));
+        }
+        return maxDelta;
+    }
+
+    /**
+     * Jumps ahead to the ranks that the last three iterations are heading towards,
+     * using Aitken's delta-squared method.
+     *
+     * Once power iteration has run for a while, the remaining error is mostly a
+     * multiple of a single vector, which shrinks by a fixed ratio every iteration. If
+     * so, the last two steps point in the same direction, and the ratio of their
+     * lengths tells us how far the iteration still has to go. If the steps don't line
+     * up (for example, because the error is spinning around rather than shrinking),
+     * extrapolating would only make things worse, so we leave the ranks alone.
+     */
+    private void extrapolate(ForkJoinPool pool, int numChunks, double[] older, double[] previous, double[] ranks) {
+        // For each chunk: the dot product of the two steps, |step before|^2 and |last step|^2.
+        double[][] partials = new double[3][numChunks];
+        runChunks(pool, numChunks, chunk -> {
+            int end = Math.min(ranks.length, (chunk + 1) * CHUNK_SIZE);
+            for (int v = chunk * CHUNK_SIZE; v < end; v++) {
+                double stepBefore = previous[v] - older[v];
+                double lastStep = ranks[v] - previous[v];
+                partials[0][chunk] += stepBefore * lastStep;
+                partials[1][chunk] += stepBefore * stepBefore;
+                partials[2][chunk] += lastStep * lastStep;
+            }
+        });
+        double dot = sumInOrder(partials[0]);
+        double before = sumInOrder(partials[1]);
+        double last = sumInOrder(partials[2]);
+        double ratio = dot / before;
+        if (!(ratio > 0.0 && ratio < 1.0) || dot * dot < MIN_STEP_ALIGNMENT * before * last) {
+            return;
+        }
+
+        double factor = ratio / (1.0 - ratio);
+        double[] chunkSums = partials[0];
+        runChunks(pool, numChunks, chunk -> {
+            double total = 0.0;
+            int end = Math.min(ranks.length, (chunk + 1) * CHUNK_SIZE);
+            for (int v = chunk * CHUNK_SIZE; v < end; v++) {
+                double extrapolated = ranks[v] + (ranks[v] - previous[v]) * factor;
+                if (extrapolated > 0.0) {
+                    ranks[v] = extrapolated;
+                }
+                total += ranks[v];
+            }
+            chunkSums[chunk] = total;
+        });
+        double total = sumInOrder(chunkSums);
+        runChunks(pool, numChunks, chunk -> scale(ranks, 1.0 / total, chunk));
+    }
+
+    private static void scale(double[] values, double factor, int chunk) {
+        int end = Math.min(values.length, (chunk + 1) * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            values[i] *= factor;
+        }
+    }
+
+    /**
+     * Adds up the given per-chunk values in chunk order, so the result never depends on
+     * which thread finished first.
+     */
+    private static double sumInOrder(double[] chunkValues) {
+        double total = 0.0;
+        for (double value : chunkValues) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Runs the given task once for every chunk, and waits for all of them to finish.
+     */
+    private static void runChunks(ForkJoinPool pool, int numChunks, IntConsumer task) {
+        if (pool == null) {
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                task.accept(chunk);
+            }
+        } else {
+            pool.invoke(new ChunkAction(task, 0, numChunks));
+        }
+    }
+
+    /**
+     * Runs a task for every chunk in a range, splitting the range in half until each
+     * piece is a single chunk.
+     */
+    private static class ChunkAction extends RecursiveAction {
+        private final IntConsumer task;
+        private final int from;
+        private final int to;
+
+        public ChunkAction(IntConsumer task, int from, int to) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from == 1) {
+                this.task.accept(this.from);
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ChunkAction(this.task, this.from, middle), new ChunkAction(this.task, middle, this.to));
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package search.analyzers;
+
+import java.util.Arrays;
+
+/**
+ * A posting list for a single term: every document containing that term, along
+ * with the number of times the term appears in that document.
+ *
+ * Documents are identified by small integer ids and kept sorted by id. Since most
+ * lists are long runs of nearby ids and small counts, we store each posting as the
+ * gap from the previous document's id followed by the count, both as variable-length
+ * integers: 7 bits per byte, with the high bit set on every byte but the last. A
+ * typical posting takes two or three bytes instead of the twelve an int and a double
+ * would.
+ *
+ * The cost is that postings can only be read in order, through a Cursor. To let a
+ * cursor skip ahead without decoding everything in between, postings are grouped into
+ * blocks of BLOCK_SIZE, and for each block we keep where it starts and the id of its
+ * last document. A cursor looking for some document can binary search those skip
+ * entries, jump straight to the only block that can contain it, and decode at most
+ * one block.
+ *
+ * Documents are usually added in increasing id order, which just appends to the list.
+ * Anything else re-encodes every block from the affected one onwards.
+ */
+public class PostingList {
+    public static final int BLOCK_SIZE = 128;
+
+    // The encoded postings; only the first 'dataLength' bytes are used.
+    private byte[] data;
+    private int dataLength;
+
+    // The skip entries: where each block starts within 'data', and the id of the last
+    // document in each block. Every block but the last is full.
+    private int[] blockOffsets;
+    private int[] blockLastIds;
+    private int size;
+
+    public PostingList() {
+        this.data = new byte[8];
+        this.dataLength = 0;
+        this.blockOffsets = new int[1];
+        this.blockLastIds = new int[1];
+        this.size = 0;
+    }
+
+    /**
+     * Adds a posting for the given document, replacing its existing posting if it
+     * already has one.
+     */
+    public void add(int documentId, int count) {
+        if (this.size == 0 || documentId > this.lastDocumentId()) {
+            this.append(documentId, count);
+            return;
+        }
+
+        int block = this.findBlock(0, documentId);
+        int[] ids = new int[this.size - block * BLOCK_SIZE];
+        int[] counts = new int[ids.length];
+        this.decode(block, ids, counts);
+        int index = Arrays.binarySearch(ids, documentId);
+        int insertAt = index >= 0 ? index : -(index + 1);
+
+        this.truncate(block);
+        for (int i = 0; i < ids.length; i++) {
+            if (i == insertAt) {
+                this.append(documentId, count);
+            }
+            if (i != index) {
+                this.append(ids[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes the posting for the given document, and returns 'true' if there was one.
+     */
+    public boolean remove(int documentId) {
+        int block = this.findBlock(0, documentId);
+        if (block == this.numBlocks()) {
+            return false;
+        }
+        int[] ids = new int[this.size - block * BLOCK_SIZE];
+        int[] counts = new int[ids.length];
+        this.decode(block, ids, counts);
+        int index = Arrays.binarySearch(ids, documentId);
+        if (index < 0) {
+            return false;
+        }
+
+        this.truncate(block);
+        for (int i = 0; i < ids.length; i++) {
+            if (i != index) {
+                this.append(ids[i], counts[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of documents in this list.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of bytes the postings take up, skip entries included.
+     */
+    public int encodedSize() {
+        return this.dataLength + this.numBlocks() * 2 * Integer.BYTES;
+    }
+
+    /**
+     * Returns a new cursor, positioned on the first document in this list.
+     *
+     * Cursors don't notice changes to the list: it must not change while one is in use.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private int numBlocks() {
+        return (this.size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    private int lastDocumentId() {
+        return this.blockLastIds[(this.size - 1) / BLOCK_SIZE];
+    }
+
+    /**
+     * Returns the first block at or after 'from' whose last document id is at least the
+     * given id, or numBlocks() if there is no such block.
+     */
+    private int findBlock(int from, int documentId) {
+        int numBlocks = this.numBlocks();
+        if (from >= numBlocks) {
+            return numBlocks;
+        }
+        int index = Arrays.binarySearch(this.blockLastIds, from, numBlocks, documentId);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private void append(int documentId, int count) {
+        int block = this.size / BLOCK_SIZE;
+        if (this.size % BLOCK_SIZE == 0) {
+            if (block == this.blockOffsets.length) {
+                this.blockOffsets = Arrays.copyOf(this.blockOffsets, block * 2);
+                this.blockLastIds = Arrays.copyOf(this.blockLastIds, block * 2);
+            }
+            this.blockOffsets[block] = this.dataLength;
+        }
+        int previous = this.size == 0 ? 0 : this.lastDocumentId();
+
+        // Each number takes at most 5 bytes.
+        if (this.dataLength + 10 > this.data.length) {
+            this.data = Arrays.copyOf(this.data, Math.max(this.dataLength + 10, this.data.length * 2));
+        }
+        this.writeNumber(documentId - previous);
+        this.writeNumber(count);
+        this.blockLastIds[block] = documentId;
+        this.size++;
+    }
+
+    private void writeNumber(int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            this.data[this.dataLength] = (byte) ((remaining & 0x7F) | 0x80);
+            this.dataLength++;
+            remaining >>>= 7;
+        }
+        this.data[this.dataLength] = (byte) remaining;
+        this.dataLength++;
+    }
+
+    /**
+     * Copies every posting from the start of the given block onwards into the given
+     * arrays, which must be exactly big enough to hold them.
+     */
+    private void decode(int block, int[] ids, int[] counts) {
+        Cursor cursor = new Cursor();
+        cursor.jumpTo(block);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = cursor.documentId();
+            counts[i] = cursor.count();
+            cursor.next();
+        }
+    }
+
+    /**
+     * Throws away every posting from the start of the given block onwards.
+     */
+    private void truncate(int block) {
+        this.dataLength = this.blockOffsets[block];
+        this.size = block * BLOCK_SIZE;
+    }
+
+    /**
+     * Walks through a posting list in document order.
+     */
+    public class Cursor {
+        private final byte[] bytes;
+        private final int size;
+
+        // The position of the current posting within the list, or the list's size once
+        // we've gone past the end; and where the posting after it starts in 'bytes'.
+        private int index;
+        private int offset;
+        private int documentId;
+        private int count;
+
+        private Cursor() {
+            this.bytes = PostingList.this.data;
+            this.size = PostingList.this.size;
+            this.jumpTo(0);
+        }
+
+        /**
+         * Returns the id of the current document, or Integer.MAX_VALUE if we've gone
+         * past the end of the list.
+         */
+        public int documentId() {
+            return this.documentId;
+        }
+
+        /**
+         * Returns the number of times the term appears in the current document.
+         */
+        public int count() {
+            return this.count;
+        }
+
+        /**
+         * Moves to the next document in the list.
+         */
+        public void next() {
+            if (this.index + 1 >= this.size) {
+                this.finish();
+            } else {
+                this.index++;
+                this.read(this.documentId);
+            }
+        }
+
+        /**
+         * Moves forward to the first document whose id is at least the given id.
+         *
+         * If that document isn't in the current block, we use the skip entries to jump
+         * straight to the block it must be in.
+         */
+        public void seek(int target) {
+            if (this.documentId >= target) {
+                return;
+            }
+            int block = this.index / BLOCK_SIZE;
+            if (PostingList.this.blockLastIds[block] < target) {
+                int next = PostingList.this.findBlock(block + 1, target);
+                if (next == PostingList.this.numBlocks()) {
+                    this.finish();
+                    return;
+                }
+                this.jumpTo(next);
+            }
+            while (this.documentId < target) {
+                this.next();
+            }
+        }
+
+        /**
+         * Moves to the first posting in the given block.
+         */
+        private void jumpTo(int block) {
+            if (block >= PostingList.this.numBlocks()) {
+                this.finish();
+                return;
+            }
+            this.index = block * BLOCK_SIZE;
+            this.offset = PostingList.this.blockOffsets[block];
+            this.read(block == 0 ? 0 : PostingList.this.blockLastIds[block - 1]);
+        }
+
+        private void finish() {
+            this.index = this.size;
+            this.documentId = Integer.MAX_VALUE;
+            this.count = 0;
+        }
+
+        /**
+         * Decodes the posting at 'offset', given the id of the document before it.
+         */
+        private void read(int previous) {
+            this.documentId = previous + this.readNumber();
+            this.count = this.readNumber();
+        }
+
+        private int readNumber() {
+            int next = this.bytes[this.offset];
+            this.offset++;
+            if (next >= 0) {
+                // Almost every gap and count fits in a single byte.
+                return next;
+            }
+            int value = next & 0x7F;
+            for (int shift = 7; next < 0; shift += 7) {
+                next = this.bytes[this.offset];
+                this.offset++;
+                value |= (next & 0x7F) << shift;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package search.analyzers;
+
+/**
+ * A search query that has already been turned into a TF-IDF vector by
+ * TfIdfAnalyzer.prepare(...), so it can be scored against any number of documents
+ * without recomputing the vector or its norm for each one.
+ *
+ * The query's words are kept in their original order, duplicates included, as word
+ * ids paired with the word's weight in the query vector. Words that aren't in the
+ * index have an id of -1 and a weight of zero.
+ *
+ * A prepared query is only valid until the index it was prepared by changes: IDF
+ * scores depend on every document in the index.
+ */
+public class PreparedQuery {
+    private final TfIdfAnalyzer analyzer;
+    private final int generation;
+    private final int[] termIds;
+    private final double[] weights;
+    private final double norm;
+
+    PreparedQuery(TfIdfAnalyzer analyzer, int generation, int[] termIds, double[] weights, double norm) {
+        this.analyzer = analyzer;
+        this.generation = generation;
+        this.termIds = termIds;
+        this.weights = weights;
+        this.norm = norm;
+    }
+
+    /**
+     * Returns the number of words in the query, including duplicates.
+     */
+    public int size() {
+        return this.termIds.length;
+    }
+
+    /**
+     * Returns the id of the index-th word of the query, or -1 if no document has
+     * ever contained it.
+     */
+    public int getTermId(int index) {
+        return this.termIds[index];
+    }
+
+    /**
+     * Returns the weight of the index-th word of the query within the query's
+     * TF-IDF vector.
+     */
+    public double getWeight(int index) {
+        return this.weights[index];
+    }
+
+    /**
+     * Returns the norm of the query's TF-IDF vector.
+     */
+    public double getNorm() {
+        return this.norm;
+    }
+
+    /**
+     * Returns 'true' if this query was prepared by the given analyzer, and the
+     * analyzer hasn't changed since.
+     */
+    boolean isCurrent(TfIdfAnalyzer currentAnalyzer, int currentGeneration) {
+        return this.analyzer == currentAnalyzer && this.generation == currentGeneration;
+    }
+}
@@ -0,0 +1,101 @@
+package search.analyzers;
+
+/**
+ * Accumulates a score for each document touched while answering a query.
+ *
+ * Scores live in an array indexed by document id, so adding to a score is a single
+ * array write. We also remember which documents have been touched, in the order
+ * they were first touched, so callers can visit just those documents afterwards
+ * without scanning every id.
+ */
+public class ScoreAccumulator {
+    private double[] scores;
+    private boolean[] touched;
+    private int[] documentIds;
+    private int size;
+
+    /**
+     * Creates an accumulator for documents with ids from 0 up to (but not including)
+     * 'numDocuments'.
+     */
+    public ScoreAccumulator(int numDocuments) {
+        this.scores = new double[numDocuments];
+        this.touched = new boolean[numDocuments];
+        this.documentIds = new int[Math.min(16, numDocuments)];
+        this.size = 0;
+    }
+
+    /**
+     * Adds the given amount to the document's score, marking it as touched.
+     */
+    public void add(int documentId, double amount) {
+        this.touch(documentId);
+        this.scores[documentId] += amount;
+    }
+
+    /**
+     * Replaces the document's score, marking it as touched.
+     */
+    public void set(int documentId, double score) {
+        this.touch(documentId);
+        this.scores[documentId] = score;
+    }
+
+    private void touch(int documentId) {
+        if (!this.touched[documentId]) {
+            this.touched[documentId] = true;
+            if (this.size == this.documentIds.length) {
+                int[] newIds = new int[Math.min(this.size * 2, this.scores.length)];
+                System.arraycopy(this.documentIds, 0, newIds, 0, this.size);
+                this.documentIds = newIds;
+            }
+            this.documentIds[this.size] = documentId;
+            this.size++;
+        }
+    }
+
+    /**
+     * Returns 'true' if the given document has been touched since this accumulator
+     * was created or last cleared.
+     */
+    public boolean contains(int documentId) {
+        return this.touched[documentId];
+    }
+
+    /**
+     * Returns the given document's score, or 0.0 if it hasn't been touched.
+     */
+    public double getScore(int documentId) {
+        return this.scores[documentId];
+    }
+
+    /**
+     * Returns the number of documents touched.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the id of the index-th document touched.
+     */
+    public int getDocumentId(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return this.documentIds[index];
+    }
+
+    /**
+     * Resets every touched document's score back to zero, so this accumulator can
+     * be reused. Takes time proportional to the number of documents touched.
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            int documentId = this.documentIds[i];
+            this.scores[documentId] = 0.0;
+            this.touched[documentId] = false;
+        }
+        this.size = 0;
+    }
+}
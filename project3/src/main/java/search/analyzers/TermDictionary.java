@@ -0,0 +1,112 @@
+package search.analyzers;
+
+/**
+ * Assigns every distinct word a dense integer id, starting from 0.
+ *
+ * The analyzers use these ids to keep per-word data (IDF scores, posting lists)
+ * in arrays, so a word only needs to be hashed once per query instead of once per
+ * document. Words are never removed once they've been given an id.
+ */
+public class TermDictionary {
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    // An open-addressed table of (id + 1), using linear probing; 0 marks an empty slot.
+    private int[] slots;
+
+    // Indexed by id.
+    private String[] terms;
+    private int[] hashes;
+    private int size;
+
+    public TermDictionary() {
+        this.slots = new int[64];
+        this.terms = new String[16];
+        this.hashes = new int[16];
+        this.size = 0;
+    }
+
+    private static int hashOf(String term) {
+        int hash = term.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the id of the given word, or -1 if it has never been added.
+     */
+    public int getId(String term) {
+        int hash = hashOf(term);
+        int mask = this.slots.length - 1;
+        for (int slot = hash & mask; this.slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = this.slots[slot] - 1;
+            if (this.hashes[id] == hash && this.terms[id].equals(term)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the id of the given word, giving it the next available id first if
+     * it has never been added.
+     */
+    public int getOrAddId(String term) {
+        int hash = hashOf(term);
+        int mask = this.slots.length - 1;
+        int slot = hash & mask;
+        for (; this.slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = this.slots[slot] - 1;
+            if (this.hashes[id] == hash && this.terms[id].equals(term)) {
+                return id;
+            }
+        }
+
+        int id = this.size;
+        if (id == this.terms.length) {
+            String[] newTerms = new String[id * 2];
+            int[] newHashes = new int[id * 2];
+            System.arraycopy(this.terms, 0, newTerms, 0, id);
+            System.arraycopy(this.hashes, 0, newHashes, 0, id);
+            this.terms = newTerms;
+            this.hashes = newHashes;
+        }
+        this.terms[id] = term;
+        this.hashes[id] = hash;
+        this.slots[slot] = id + 1;
+        this.size++;
+
+        if (this.size > this.slots.length * MAX_LOAD_FACTOR) {
+            this.rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        this.slots = new int[this.slots.length * 2];
+        int mask = this.slots.length - 1;
+        for (int id = 0; id < this.size; id++) {
+            int slot = this.hashes[id] & mask;
+            while (this.slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Returns the word with the given id.
+     */
+    public String getTerm(int id) {
+        if (id < 0 || id >= this.size) {
+            throw new IndexOutOfBoundsException("No word has the id " + id);
+        }
+        return this.terms[id];
+    }
+
+    /**
+     * Returns the number of distinct words. Ids range from 0 up to (but not
+     * including) this number.
+     */
+    public int size() {
+        return this.size;
+    }
+}
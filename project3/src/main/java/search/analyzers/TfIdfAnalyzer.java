@@ -1,126 +1,478 @@
 package search.analyzers;
 
-import datastructures.concrete.ChainedHashSet;
-import datastructures.concrete.KVPair;
 import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.concrete.dictionaries.ObjectDoubleHashDictionary;
 import datastructures.interfaces.IDictionary;
 import datastructures.interfaces.IList;
+import datastructures.interfaces.IObjectDoubleDictionary;
 import datastructures.interfaces.ISet;
+import misc.exceptions.NoSuchKeyException;
+import search.misc.BinaryIO;
+import search.models.DocumentIdRegistry;
 import search.models.Webpage;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
 
 /**
 * This class is responsible for computing how "relevant" any given document is
 * to a given search query.
 *
 * See the spec for more details.
+*
+* Documents can be added or removed at any time, without rebuilding the index. We
+* only store raw counts: how often each word appears in each document, and how many
+* documents contain each word. IDF scores and document norms depend on the total
+* number of documents, so they change with every update; rather than recomputing
+* them all each time, we work them out when a query first needs them and cache them
+* until the next update.
+*
+* Any number of queries may run at the same time, but updates must not run at the
+* same time as anything else.
 */
 public class TfIdfAnalyzer {
-    // This field must contain the IDF score for every single word in all
-    // the documents.
-    private IDictionary<String, Double> idfScores;
-    private IDictionary<URI, Double> normDocumentVector;
-    
-    // This field must contain the TF-IDF vector for each webpage you were given
-    // in the constructor.
-    //
-    // We will use each webpage's page URI as a unique key.
-    private IDictionary<URI, IDictionary<String, Double>> documentTfIdfVectors;
-    
-    // Feel free to add extra fields and helper methods.
-    
+    // Every page is identified by its id within this registry, and every word by
+    // its id within 'terms'. All per-page and per-word data below is stored in
+    // arrays indexed by those ids.
+    private DocumentIdRegistry registry;
+    private TermDictionary terms;
+
+    // The words in each document, as sorted word ids, along with the number of times
+    // each word appears and the total number of words in the document. Documents
+    // we don't know about (for example, ones that have been removed) have no entry.
+    private int[][] documentTermIds;
+    private int[][] documentTermCounts;
+    private int[] documentLengths;
+    private int numDocuments;
+
+    // The number of documents containing each word, and the total of those numbers.
+    private int[] documentFrequencies;
+    private long numPostings;
+
+    // Scratch space used while adding a document: how many times each word appears
+    // in it, indexed by word id. Every entry is back to zero between documents.
+    private int[] termCountScratch;
+    private int[] termIdScratch;
+
+    // The inverted index: for each word id, every document containing that word
+    // (in increasing id order) along with the number of times the word appears in it.
+    private PostingList[] postings;
+
+    // Cached IDF scores and document norms, or NaN if they haven't been computed
+    // since the last update. 'generation' counts updates, and 'cacheGeneration' is the
+    // generation these caches belong to.
+    private double[] idfScores;
+    private double[] documentNorms;
+    private int generation;
+    private int cacheGeneration;
+
     public TfIdfAnalyzer(ISet<Webpage> webpages) {
-        // Implementation note: We have commented these method calls out so your
-        // search engine doesn't immediately crash when you try running it for the
-        // first time.
-        //
-        // You should uncomment these lines when you're ready to begin working
-        // on this class.
-        this.normDocumentVector = new ChainedHashDictionary<URI, Double>();
-        this.idfScores = this.computeIdfScores(webpages);
-        this.documentTfIdfVectors = this.computeAllDocumentTfIdfVectors(webpages);
-        for (KVPair<URI, IDictionary<String, Double>> pair : this.documentTfIdfVectors) {
-            normDocumentVector.put(pair.getKey(), norm(pair.getValue()));
-        }
-    }
-    
+        this(webpages, DocumentIdRegistry.of(webpages));
+    }
+
+    /**
+    * Builds the analyzer, identifying each webpage by its id within the given registry.
+    *
+    * Precondition: every given webpage has been registered.
+    */
+    public TfIdfAnalyzer(ISet<Webpage> webpages, DocumentIdRegistry registry) {
+        this(registry);
+        Webpage[] pagesById = new Webpage[registry.size()];
+        for (Webpage page : webpages) {
+            pagesById[registry.getId(page.getUri())] = page;
+        }
+
+        // Everything is built in a single pass over the pages: counting each page's
+        // words also counts the documents containing each word. Adding the pages in id
+        // order means every posting is appended to the end of its list.
+        for (int id = 0; id < pagesById.length; id++) {
+            if (pagesById[id] != null) {
+                this.index(id, pagesById[id].getWords());
+            }
+        }
+
+        // Every page is in the index now, so every IDF score and norm is final: we work
+        // them all out up front rather than making the first few queries do it.
+        this.refreshCaches();
+        for (int termId = 0; termId < this.terms.size(); termId++) {
+            this.idf(termId);
+        }
+        for (int id = 0; id < pagesById.length; id++) {
+            if (this.isIndexed(id)) {
+                this.documentNorm(id);
+            }
+        }
+    }
+
+    private TfIdfAnalyzer(DocumentIdRegistry registry) {
+        this.registry = registry;
+        this.terms = new TermDictionary();
+        this.documentTermIds = new int[16][];
+        this.documentTermCounts = new int[16][];
+        this.documentLengths = new int[16];
+        this.numDocuments = 0;
+        this.documentFrequencies = new int[64];
+        this.numPostings = 0;
+        this.termCountScratch = new int[64];
+        this.termIdScratch = new int[16];
+        this.postings = new PostingList[64];
+        this.idfScores = new double[0];
+        this.documentNorms = new double[0];
+        this.generation = 0;
+        this.cacheGeneration = -1;
+    }
+
+    /**
+    * Adds the given webpage to the index, registering it if it hasn't been registered
+    * yet, so it can be found by the very next query. If the page is already in the
+    * index, its old contents are replaced.
+    */
+    public void addDocument(Webpage page) {
+        int id = this.registry.register(page);
+        if (this.isIndexed(id)) {
+            this.unindex(id);
+        }
+        this.index(id, page.getWords());
+    }
+
+    /**
+    * Removes the webpage with the given URI from the index. It's up to the caller to
+    * remove the page from the registry as well, if needed.
+    *
+    * @throws NoSuchKeyException  if no page with that URI is in the index
+    */
+    public void removeDocument(URI pageUri) {
+        int id = this.registry.getIdOrDefault(pageUri, -1);
+        if (!this.isIndexed(id)) {
+            throw new NoSuchKeyException();
+        }
+        this.unindex(id);
+    }
+
+    boolean isIndexed(int documentId) {
+        return documentId >= 0 && documentId < this.documentTermIds.length
+                && this.documentTermIds[documentId] != null;
+    }
+
+    /**
+    * Adds the given document's words to the index.
+    *
+    * We count the words in termCountScratch, which works like a dictionary from word
+    * id to count without hashing or boxing anything, remembering each distinct word
+    * the first time we see it.
+    */
+    private void index(int documentId, IList<String> words) {
+        int numDistinct = 0;
+        for (String word : words) {
+            int termId = this.terms.getOrAddId(word);
+            if (termId >= this.termCountScratch.length) {
+                this.termCountScratch = Arrays.copyOf(this.termCountScratch, Math.max(termId + 1, termId * 2));
+            }
+            if (this.termCountScratch[termId] == 0) {
+                if (numDistinct == this.termIdScratch.length) {
+                    this.termIdScratch = Arrays.copyOf(this.termIdScratch, numDistinct * 2);
+                }
+                this.termIdScratch[numDistinct] = termId;
+                numDistinct++;
+            }
+            this.termCountScratch[termId]++;
+        }
+
+        int[] termIds = Arrays.copyOf(this.termIdScratch, numDistinct);
+        Arrays.sort(termIds);
+        int[] termCounts = new int[numDistinct];
+        for (int i = 0; i < numDistinct; i++) {
+            termCounts[i] = this.termCountScratch[termIds[i]];
+            this.termCountScratch[termIds[i]] = 0;
+        }
+        this.store(documentId, termIds, termCounts, words.size());
+    }
+
+    /**
+    * Adds a document with the given (sorted, distinct) word ids, word counts and total
+    * number of words to the index.
+    */
+    private void store(int documentId, int[] termIds, int[] termCounts, int length) {
+        if (documentId >= this.documentTermIds.length) {
+            int newLength = Math.max(documentId + 1, this.documentTermIds.length * 2);
+            this.documentTermIds = Arrays.copyOf(this.documentTermIds, newLength);
+            this.documentTermCounts = Arrays.copyOf(this.documentTermCounts, newLength);
+            this.documentLengths = Arrays.copyOf(this.documentLengths, newLength);
+        }
+        this.ensureTermCapacity();
+
+        this.documentTermIds[documentId] = termIds;
+        this.documentTermCounts[documentId] = termCounts;
+        this.documentLengths[documentId] = length;
+        for (int i = 0; i < termIds.length; i++) {
+            int termId = termIds[i];
+            if (this.postings[termId] == null) {
+                this.postings[termId] = new PostingList();
+            }
+            this.postings[termId].add(documentId, termCounts[i]);
+            this.documentFrequencies[termId]++;
+        }
+        this.numPostings += termIds.length;
+        this.numDocuments++;
+        this.generation++;
+    }
+
+    /**
+    * Makes sure documentFrequencies and postings have room for every word id we've
+    * handed out.
+    */
+    private void ensureTermCapacity() {
+        if (this.terms.size() > this.postings.length) {
+            int newLength = Math.max(this.terms.size(), this.postings.length * 2);
+            this.documentFrequencies = Arrays.copyOf(this.documentFrequencies, newLength);
+            this.postings = Arrays.copyOf(this.postings, newLength);
+        }
+    }
+
+    private void unindex(int documentId) {
+        for (int termId : this.documentTermIds[documentId]) {
+            this.postings[termId].remove(documentId);
+            this.documentFrequencies[termId]--;
+        }
+        this.numPostings -= this.documentTermIds[documentId].length;
+        this.documentTermIds[documentId] = null;
+        this.documentTermCounts[documentId] = null;
+        this.documentLengths[documentId] = 0;
+        this.numDocuments--;
+        this.generation++;
+    }
+
+    /**
+    * Returns the number of times this index has changed; see PreparedQuery.
+    */
+    int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+    * Returns the number of distinct words we've ever seen. Word ids range from 0 up to
+    * (but not including) this number.
+    */
+    public int numTerms() {
+        return this.terms.size();
+    }
+
+    /**
+    * Returns the number of postings in the inverted index: the total, over every
+    * document, of the number of distinct words in it.
+    */
+    public long numPostings() {
+        return this.numPostings;
+    }
+
+    /**
+    * Returns the posting list of the given word, or null if it has never been in any
+    * document.
+    */
+    PostingList getPostings(int termId) {
+        return termId < this.postings.length ? this.postings[termId] : null;
+    }
+
+    /**
+    * Returns the TF score of a word that appears the given number of times in the given
+    * document.
+    */
+    double termFrequency(int documentId, int count) {
+        return (double) count / this.documentLengths[documentId];
+    }
+
+    /**
+    * Throws away the cached IDF scores and norms if the index has changed since they
+    * were computed. Every query calls this before looking at either cache.
+    */
+    private synchronized void refreshCaches() {
+        if (this.cacheGeneration != this.generation) {
+            double[] idf = new double[this.terms.size()];
+            double[] norms = new double[this.documentTermIds.length];
+            Arrays.fill(idf, Double.NaN);
+            Arrays.fill(norms, Double.NaN);
+            this.idfScores = idf;
+            this.documentNorms = norms;
+            this.cacheGeneration = this.generation;
+        }
+    }
+
+    /**
+    * Returns the IDF score of the given word, or 0.0 if no document contains it (or
+    * termId is -1).
+    *
+    * Two queries may both compute the same missing score at once; that's fine, since
+    * they both compute (and store) exactly the same value.
+    */
+    double idf(int termId) {
+        if (termId < 0) {
+            return 0.0;
+        }
+        double idf = this.idfScores[termId];
+        if (Double.isNaN(idf)) {
+            int documentFrequency = this.documentFrequencies[termId];
+            idf = documentFrequency == 0 ? 0.0 : Math.log((double) this.numDocuments / documentFrequency);
+            this.idfScores[termId] = idf;
+        }
+        return idf;
+    }
+
+    /**
+    * Returns the norm of the given document's TF-IDF vector. See idf(...) about
+    * computing it from several threads at once.
+    */
+    double documentNorm(int documentId) {
+        double norm = this.documentNorms[documentId];
+        if (Double.isNaN(norm)) {
+            norm = this.norm(documentId);
+            this.documentNorms[documentId] = norm;
+        }
+        return norm;
+    }
+
+    /**
+    * Writes the contents of every document in the index, so it can be restored by
+    * readFrom(...) without looking at a single webpage.
+    *
+    * Only the raw counts are written: the document frequencies and inverted index are
+    * rebuilt from them in a single linear pass, and everything else is computed
+    * lazily anyway.
+    */
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeInt(this.terms.size());
+        for (int termId = 0; termId < this.terms.size(); termId++) {
+            BinaryIO.writeString(output, this.terms.getTerm(termId));
+        }
+
+        // The documents are written in compressed sparse row form: the words in
+        // document 'd' are at positions offsets[d] up to offsets[d + 1]. Documents that
+        // aren't in the index have a length of -1.
+        int numIds = this.registry.size();
+        int[] lengths = new int[numIds];
+        int[] offsets = new int[numIds + 1];
+        for (int id = 0; id < numIds; id++) {
+            boolean indexed = this.isIndexed(id);
+            lengths[id] = indexed ? this.documentLengths[id] : -1;
+            offsets[id + 1] = offsets[id] + (indexed ? this.documentTermIds[id].length : 0);
+        }
+        int[] termIds = new int[offsets[numIds]];
+        int[] termCounts = new int[offsets[numIds]];
+        for (int id = 0; id < numIds; id++) {
+            if (this.isIndexed(id)) {
+                System.arraycopy(this.documentTermIds[id], 0, termIds, offsets[id], this.documentTermIds[id].length);
+                System.arraycopy(
+                        this.documentTermCounts[id], 0, termCounts, offsets[id], this.documentTermCounts[id].length);
+            }
+        }
+        BinaryIO.writeIntArray(output, lengths);
+        BinaryIO.writeIntArray(output, offsets);
+        BinaryIO.writeIntArray(output, termIds);
+        BinaryIO.writeIntArray(output, termCounts);
+    }
+
+    /**
+    * Reads an analyzer written by writeTo(...).
+    *
+    * Precondition: 'registry' assigns every page the same id as the registry the
+    *               analyzer was originally built with.
+    */
+    public static TfIdfAnalyzer readFrom(DataInput input, DocumentIdRegistry registry) throws IOException {
+        TfIdfAnalyzer analyzer = new TfIdfAnalyzer(registry);
+        int numTerms = input.readInt();
+        for (int termId = 0; termId < numTerms; termId++) {
+            analyzer.terms.getOrAddId(BinaryIO.readString(input));
+        }
+        // Every word gets a slot now, even if (say) every page was removed before the
+        // index was saved, so store(...) never runs below.
+        analyzer.ensureTermCapacity();
+        int[] lengths = BinaryIO.readIntArray(input);
+        int[] offsets = BinaryIO.readIntArray(input);
+        int[] termIds = BinaryIO.readIntArray(input);
+        int[] termCounts = BinaryIO.readIntArray(input);
+
+        if (analyzer.terms.size() != numTerms
+                || lengths.length != registry.size()
+                || offsets.length != registry.size() + 1
+                || offsets[registry.size()] != termIds.length
+                || termCounts.length != termIds.length) {
+            throw new IOException("TF-IDF data doesn't match the registry it was read with");
+        }
+        for (int id = 0; id < lengths.length; id++) {
+            if (lengths[id] >= 0) {
+                analyzer.store(
+                        id,
+                        Arrays.copyOfRange(termIds, offsets[id], offsets[id + 1]),
+                        Arrays.copyOfRange(termCounts, offsets[id], offsets[id + 1]),
+                        lengths[id]);
+            }
+        }
+        return analyzer;
+    }
+
     // Note: this method, strictly speaking, doesn't need to exist. However,
     // we've included it so we can add some unit tests to help verify that your
     // constructor correctly initializes your fields.
+    //
+    // Since we only store raw counts, this builds a copy on every call: it's meant
+    // for tests and debugging, not for anything performance-sensitive.
     public IDictionary<URI, IDictionary<String, Double>> getDocumentTfIdfVectors() {
-        return this.documentTfIdfVectors;
+        this.refreshCaches();
+        IDictionary<URI, IDictionary<String, Double>> output = new ChainedHashDictionary<>();
+        for (int id = 0; id < this.registry.size(); id++) {
+            if (!this.isIndexed(id)) {
+                continue;
+            }
+            IDictionary<String, Double> vector = new ChainedHashDictionary<>();
+            for (int i = 0; i < this.documentTermIds[id].length; i++) {
+                vector.put(this.terms.getTerm(this.documentTermIds[id][i]), this.weight(id, i));
+            }
+            output.put(this.registry.getUri(id), vector);
+        }
+        return output;
     }
-    
+
     // Note: these private methods are suggestions or hints on how to structure your
     // code. However, since they're private, you're not obligated to implement exactly
     // these methods: Feel free to change or modify these methods if you want. The
     // important thing is that your 'computeRelevance' method ultimately returns the
     // correct answer in an efficient manner.
-    
-    /**
-    * This method should return a dictionary mapping every single unique word found
-    * in any documents to their IDF score.
-    */
-    private IDictionary<String, Double> computeIdfScores(ISet<Webpage> pages) {
-        IDictionary<String, Double> idf = new ChainedHashDictionary<String, Double>();
-        int docNum = pages.size();
-        for (Webpage page : pages) {
-            ISet<String> wordSet = new ChainedHashSet<String>();
-            for (String word : page.getWords()) {
-                wordSet.add(word);
-            }
-            for (String word : wordSet) {
-                String nextWord = word;
-                if (idf.containsKey(nextWord)) {
-                    double denominator = (double) docNum / Math.exp(idf.get(nextWord)) + 1.0;
-                    idf.put(nextWord, Math.log((double) docNum / denominator));
-                } else {
-                    idf.put(nextWord, Math.log((double) docNum));
-                }
-            }
-        }
-        return idf;
-    }
-    
+
     /**
     * Returns a dictionary mapping every unique word found in the given list
     * to their term frequency (TF) score.
     *
     * We are treating the list of words as if it were a document.
     */
-    private IDictionary<String, Double> computeTfScores(IList<String> words) {
-        IDictionary<String, Double> result = new ChainedHashDictionary<String, Double>();
+    private IObjectDoubleDictionary<String> computeTfScores(IList<String> words) {
+        IObjectDoubleDictionary<String> result = new ObjectDoubleHashDictionary<String>();
+        double increment = 1.0 / words.size();
         for (String word : words) {
-            if (result.containsKey(word)) {
-                result.put(word, result.get(word) + 1.0 / words.size());
-            } else {
-                result.put(word, 1.0 / words.size());
-            }
+            result.addTo(word, increment);
         }
         return result;
     }
-    
-    /**
-    * See spec for more details on what this method should do.
-    */
-    private IDictionary<URI, IDictionary<String, Double>> computeAllDocumentTfIdfVectors(ISet<Webpage> pages) {
-        // Hint: this method should use the idfScores field and
-        // call the computeTfScores(...) method.
-        //throw new NotYetImplementedException();
-        IDictionary<URI, IDictionary<String, Double>> vectors =
-        new ChainedHashDictionary<URI, IDictionary<String, Double>>();
-        for (Webpage page : pages) {
-            IDictionary<String, Double> tfScores = computeTfScores(page.getWords());
-            IDictionary<String, Double> temp = new ChainedHashDictionary<String, Double>();
-            for (KVPair<String, Double> pair : tfScores) {
-                temp.put(pair.getKey(), pair.getValue() * this.idfScores.get(pair.getKey()));
-            }
-            vectors.put(page.getUri(), temp);
+
+    /**
+    * Turns the given query into a TF-IDF vector, ready to be scored against any number
+    * of documents. The result can be used until this analyzer next changes.
+    */
+    public PreparedQuery prepare(IList<String> query) {
+        this.refreshCaches();
+        IObjectDoubleDictionary<String> queryVector = this.computeQueryVector(query);
+        int[] termIds = new int[query.size()];
+        double[] weights = new double[termIds.length];
+        int i = 0;
+        for (String word : query) {
+            termIds[i] = this.terms.getId(word);
+            weights[i] = queryVector.get(word);
+            i++;
         }
-        return vectors;
+        return new PreparedQuery(this, this.generation, termIds, weights, norm(queryVector));
     }
-    
+
     /**
     * Returns the cosine similarity between the TF-IDF vector for the given query and the
     * URI's document.
@@ -129,37 +481,143 @@ public class TfIdfAnalyzer {
     *               webpages given to the constructor.
     */
     public Double computeRelevance(IList<String> query, URI pageUri) {
-        IDictionary<String, Double> documentVector = this.documentTfIdfVectors.get(pageUri);
-        IDictionary<String, Double> queryTf = computeTfScores(query);
-        IDictionary<String, Double> queryVector = new ChainedHashDictionary<String, Double>();
+        return this.computeRelevance(this.prepare(query), this.registry.getId(pageUri));
+    }
+
+    /**
+    * Returns the cosine similarity between the given prepared query and the document
+    * with the given id, or 0.0 if that document isn't in the index.
+    *
+    * @throws IllegalStateException  if the query wasn't prepared by this analyzer, or
+    *                                the analyzer has changed since
+    */
+    public double computeRelevance(PreparedQuery query, int documentId) {
+        this.checkCurrent(query);
+        if (!this.isIndexed(documentId)) {
+            return 0.0;
+        }
         double numerator = 0.0;
-        for (String word : query) {
-            double docWordScore = 0.0;
-            if (idfScores.containsKey(word)) {
-                queryVector.put(word, queryTf.get(word) * this.idfScores.get(word));
-            } else {
-                queryVector.put(word, 0.0);
+        for (int i = 0; i < query.size(); i++) {
+            numerator += this.documentWeight(documentId, query.getTermId(i)) * query.getWeight(i);
+        }
+        return cosine(numerator, this.documentNorm(documentId), query.getNorm());
+    }
+
+    /**
+    * Returns the cosine similarity between the TF-IDF vector for the given query and
+    * every document that shares at least one word with it, keyed by document id.
+    * Documents that are not included have a relevance of zero.
+    *
+    * This returns exactly the same scores as calling computeRelevance(...) once per
+    * document, but only visits the posting lists of the words in the query instead
+    * of every document we know about.
+    */
+    public ScoreAccumulator computeRelevances(IList<String> query) {
+        return this.computeRelevances(this.prepare(query));
+    }
+
+    /**
+    * Same as computeRelevances(IList), for a query that has already been prepared.
+    *
+    * @throws IllegalStateException  if the query wasn't prepared by this analyzer, or
+    *                                the analyzer has changed since
+    */
+    public ScoreAccumulator computeRelevances(PreparedQuery query) {
+        this.checkCurrent(query);
+        ScoreAccumulator accumulator = new ScoreAccumulator(this.registry.size());
+
+        // We deliberately visit every occurrence of each word (rather than each unique
+        // word) in query order, so each document's numerator is summed in exactly the
+        // same order computeRelevance(...) would sum it.
+        for (int i = 0; i < query.size(); i++) {
+            int termId = query.getTermId(i);
+            PostingList list = termId < 0 ? null : this.getPostings(termId);
+            if (list == null) {
+                continue;
             }
-            if (documentVector.containsKey(word)) {
-                docWordScore = documentVector.get(word);
+            double idf = this.idf(termId);
+            double queryWordScore = query.getWeight(i);
+            PostingList.Cursor cursor = list.cursor();
+            while (cursor.documentId() != Integer.MAX_VALUE) {
+                int documentId = cursor.documentId();
+                accumulator.add(documentId, this.termFrequency(documentId, cursor.count()) * idf * queryWordScore);
+                cursor.next();
             }
-            double queryWordScore = queryVector.get(word);
-            numerator += docWordScore * queryWordScore;
         }
-        double denominator = normDocumentVector.get(pageUri) * norm(queryVector);
+
+        for (int i = 0; i < accumulator.size(); i++) {
+            int documentId = accumulator.getDocumentId(i);
+            accumulator.set(
+                    documentId,
+                    cosine(accumulator.getScore(documentId), this.documentNorm(documentId), query.getNorm()));
+        }
+        return accumulator;
+    }
+
+    private void checkCurrent(PreparedQuery query) {
+        if (!query.isCurrent(this, this.generation)) {
+            throw new IllegalStateException("The query was prepared for a different version of the index");
+        }
+    }
+
+    /**
+    * Returns the TF-IDF vector for the given query. Words we have never seen in any
+    * document are given a weight of zero.
+    */
+    private IObjectDoubleDictionary<String> computeQueryVector(IList<String> query) {
+        IObjectDoubleDictionary<String> queryTf = computeTfScores(query);
+        IObjectDoubleDictionary<String> queryVector = new ObjectDoubleHashDictionary<String>();
+        for (String word : query) {
+            queryVector.put(word, queryTf.get(word) * this.idf(this.terms.getId(word)));
+        }
+        return queryVector;
+    }
+
+    /**
+    * Returns the weight of the given word within the given document's TF-IDF vector,
+    * or 0.0 if the document doesn't contain it (or termId is -1).
+    */
+    private double documentWeight(int documentId, int termId) {
+        if (termId < 0) {
+            return 0.0;
+        }
+        int index = Arrays.binarySearch(this.documentTermIds[documentId], termId);
+        return index >= 0 ? this.weight(documentId, index) : 0.0;
+    }
+
+    /**
+    * Returns the TF-IDF weight of the index-th word of the given document.
+    */
+    private double weight(int documentId, int index) {
+        double tf = this.termFrequency(documentId, this.documentTermCounts[documentId][index]);
+        return tf * this.idf(this.documentTermIds[documentId][index]);
+    }
+
+    private static double cosine(double numerator, double documentNorm, double queryNorm) {
+        double denominator = documentNorm * queryNorm;
         if (denominator != 0.0) {
             return numerator / denominator;
         } else {
             return 0.0;
         }
     }
-    
-    private double norm(IDictionary<String, Double> vector) {
+
+    private double norm(int documentId) {
+        double output = 0.0;
+        for (int i = 0; i < this.documentTermIds[documentId].length; i++) {
+            double score = this.weight(documentId, i);
+            output += score * score;
+        }
+        return Math.sqrt(output);
+    }
+
+    private static double norm(IObjectDoubleDictionary<String> vector) {
         double output = 0.0;
-        for (KVPair<String, Double> pair : vector) {
-            double score = pair.getValue();
+        IObjectDoubleDictionary.Cursor<String> cursor = vector.cursor();
+        while (cursor.advance()) {
+            double score = cursor.value();
             output += score * score;
         }
         return Math.sqrt(output);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,315 @@
+package search.analyzers;
+
+import datastructures.concrete.DoubleIntHeap;
+import search.models.DocumentIdRegistry;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Finds the k highest-scoring documents for a query without scoring every document
+ * that shares a word with it, using MaxScore dynamic pruning.
+ *
+ * A document's final score is its TF-IDF relevance multiplied by a per-document boost
+ * (the search engine uses the square root of its page rank). For every word, we know
+ * the most it can possibly add to any document's final score. Once we've found k
+ * documents, the k-th best score is a threshold any new document has to beat, and a
+ * document that only contains words whose upper bounds add up to less than that can
+ * never make it. So we sort the query's words by upper bound, and only walk the
+ * posting lists of the 'essential' words: those whose upper bounds, added to those of
+ * every smaller word, could still beat the threshold. The other lists are only
+ * consulted for documents found in an essential list, and even then we stop as soon
+ * as the document can no longer make it.
+ *
+ * This returns exactly the same documents, with exactly the same scores, as scoring
+ * every document would: documents we don't prune are scored the same way
+ * TfIdfAnalyzer.computeRelevance(...) scores them.
+ *
+ * The upper bounds depend on both the index and the boosts, so we cache them until the
+ * index changes. The boosts must only change when the index does.
+ */
+public class TopKRetriever {
+    // The upper bounds are computed differently from the real scores, so they might be
+    // off by a rounding error or two; we inflate them by this factor to be safe.
+    private static final double BOUND_SLACK = 1.0 + 1e-9;
+
+    private final TfIdfAnalyzer analyzer;
+    private final DocumentIdRegistry registry;
+    private final IntToDoubleFunction boosts;
+
+    // For each word, the biggest value of (TF score * boost / norm) over every document
+    // containing it, or NaN if we haven't computed it since the index last changed.
+    // Replaced (never resized) whenever the index changes, so it always has an entry
+    // for every word in the index.
+    private double[] maxImpacts;
+    private int cacheGeneration;
+
+    /**
+     * @param boosts  returns the (non-negative) number each document's relevance is
+     *                multiplied by to get its final score
+     */
+    public TopKRetriever(TfIdfAnalyzer analyzer, DocumentIdRegistry registry, IntToDoubleFunction boosts) {
+        this.analyzer = analyzer;
+        this.registry = registry;
+        this.boosts = boosts;
+        this.maxImpacts = new double[0];
+        this.cacheGeneration = -1;
+    }
+
+    /**
+     * Returns a heap containing the k highest-scoring documents for the given query,
+     * along with their scores.
+     *
+     * Just like scoring every document would, if fewer than k documents share a word
+     * with the query, the rest are filled up with other documents in id order, each
+     * with a score of zero.
+     *
+     * @throws IllegalArgumentException  if k is negative
+     * @throws IllegalStateException     if the query was prepared before the index last changed
+     */
+    public DoubleIntHeap retrieve(PreparedQuery query, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        // There can't be more results than there are documents, and the heap (like
+        // 'matched' below) is allocated up front, so we don't ask for any more than that.
+        k = Math.min(k, this.registry.numActivePages());
+        DoubleIntHeap topK = new DoubleIntHeap(k);
+        if (k == 0) {
+            return topK;
+        }
+        Cursor[] cursors = this.openCursors(query);
+
+        // The ids of the first k documents we score, in increasing order, so we know
+        // which documents to skip if we need to fill up the results.
+        int[] matched = new int[k];
+        int numMatched = 0;
+
+        int firstEssential = 0;
+        double threshold = 0.0;
+        int documentId = nextDocument(cursors, firstEssential);
+        while (documentId != Integer.MAX_VALUE) {
+            if (numMatched < k) {
+                matched[numMatched] = documentId;
+                numMatched++;
+            }
+            boolean full = topK.size() == k;
+            double bound = this.bound(cursors, firstEssential, documentId, threshold);
+            if (!full || bound * BOUND_SLACK > threshold) {
+                double score = this.analyzer.computeRelevance(query, documentId) * this.boost(documentId);
+                topK.offer(score, documentId);
+                if (topK.size() == k) {
+                    threshold = topK.peekMinKey();
+                    firstEssential = firstEssential(cursors, firstEssential, threshold);
+                }
+            }
+            documentId = nextDocument(cursors, firstEssential);
+        }
+
+        this.fillUp(topK, matched, numMatched);
+        return topK;
+    }
+
+    /**
+     * Returns an upper bound on the given document's score, and moves every essential
+     * cursor that was on the document past it.
+     *
+     * The essential words are looked up exactly. For the rest, we start from their
+     * upper bounds and replace them with the real contributions one at a time, from
+     * the biggest down, so the bound can only get tighter; we stop as soon as it's
+     * clear the document can't beat the threshold.
+     */
+    private double bound(Cursor[] cursors, int firstEssential, int documentId, double threshold) {
+        double scale = this.impactScale(documentId);
+        double bound = firstEssential > 0 ? cursors[firstEssential - 1].cumulativeBound : 0.0;
+        for (int i = firstEssential; i < cursors.length; i++) {
+            Cursor cursor = cursors[i];
+            if (cursor.documentId() == documentId) {
+                bound += cursor.factor * this.termFrequency(cursor) * scale;
+                cursor.next();
+            }
+        }
+        for (int i = firstEssential - 1; i >= 0 && bound * BOUND_SLACK > threshold; i--) {
+            Cursor cursor = cursors[i];
+            cursor.seek(documentId);
+            bound -= cursor.upperBound;
+            if (cursor.documentId() == documentId) {
+                bound += cursor.factor * this.termFrequency(cursor) * scale;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Returns the index of the first essential cursor: every cursor before it has an
+     * upper bound small enough that together they can't beat the threshold.
+     */
+    private static int firstEssential(Cursor[] cursors, int current, double threshold) {
+        int first = current;
+        while (first < cursors.length && cursors[first].cumulativeBound * BOUND_SLACK <= threshold) {
+            first++;
+        }
+        return first;
+    }
+
+    /**
+     * Returns the smallest document id any essential cursor is on, or Integer.MAX_VALUE
+     * if they're all done.
+     */
+    private static int nextDocument(Cursor[] cursors, int firstEssential) {
+        int next = Integer.MAX_VALUE;
+        for (int i = firstEssential; i < cursors.length; i++) {
+            next = Math.min(next, cursors[i].documentId());
+        }
+        return next;
+    }
+
+    /**
+     * Adds documents with a score of zero until 'topK' is full, skipping documents we've
+     * already offered.
+     *
+     * We only get here with room to spare if fewer than k documents shared a word with
+     * the query, in which case we never pruned anything and 'matched' has all of them.
+     */
+    private void fillUp(DoubleIntHeap topK, int[] matched, int numMatched) {
+        int missing = topK.capacity() - numMatched;
+        int next = 0;
+        for (int documentId = 0; documentId < this.registry.size() && missing > 0; documentId++) {
+            if (next < numMatched && matched[next] == documentId) {
+                next++;
+            } else if (this.registry.contains(documentId)) {
+                topK.offer(0.0 * this.boost(documentId), documentId);
+                missing--;
+            }
+        }
+    }
+
+    /**
+     * Creates one cursor per distinct word in the query, sorted by upper bound, along
+     * with how much each word contributes per unit of (TF score * boost / norm).
+     */
+    private Cursor[] openCursors(PreparedQuery query) {
+        this.refreshCache();
+        Cursor[] cursors = new Cursor[query.size()];
+        int numCursors = 0;
+        for (int i = 0; i < query.size(); i++) {
+            int termId = query.getTermId(i);
+            PostingList list = termId < 0 ? null : this.analyzer.getPostings(termId);
+            if (list == null || list.size() == 0) {
+                continue;
+            }
+            Cursor cursor = null;
+            for (int j = 0; j < numCursors && cursor == null; j++) {
+                cursor = cursors[j].termId == termId ? cursors[j] : null;
+            }
+            if (cursor == null) {
+                cursor = new Cursor(termId, list);
+                cursors[numCursors] = cursor;
+                numCursors++;
+            }
+            // Each time a word appears in the query, it adds to the score again.
+            double weight = query.getNorm() == 0.0 ? 0.0 : query.getWeight(i) / query.getNorm();
+            cursor.factor += this.analyzer.idf(termId) * weight;
+        }
+
+        cursors = Arrays.copyOf(cursors, numCursors);
+        for (Cursor cursor : cursors) {
+            cursor.upperBound = cursor.factor * this.maxImpact(cursor.termId, cursor.list);
+        }
+        Arrays.sort(cursors, (a, b) -> Double.compare(a.upperBound, b.upperBound));
+        double total = 0.0;
+        for (Cursor cursor : cursors) {
+            total += cursor.upperBound;
+            cursor.cumulativeBound = total;
+        }
+        return cursors;
+    }
+
+    private synchronized void refreshCache() {
+        int generation = this.analyzer.getGeneration();
+        if (this.cacheGeneration != generation) {
+            double[] impacts = new double[this.analyzer.numTerms()];
+            Arrays.fill(impacts, Double.NaN);
+            this.maxImpacts = impacts;
+            this.cacheGeneration = generation;
+        }
+    }
+
+    /**
+     * Returns the biggest value of (TF score * boost / norm) over every document in the
+     * given word's posting list. Two queries may both compute the same missing value at
+     * once; that's fine, since they both store exactly the same value.
+     */
+    private double maxImpact(int termId, PostingList list) {
+        double impact = this.maxImpacts[termId];
+        if (Double.isNaN(impact)) {
+            impact = 0.0;
+            PostingList.Cursor postings = list.cursor();
+            while (postings.documentId() != Integer.MAX_VALUE) {
+                int documentId = postings.documentId();
+                double termFrequency = this.analyzer.termFrequency(documentId, postings.count());
+                impact = Math.max(impact, termFrequency * this.impactScale(documentId));
+                postings.next();
+            }
+            this.maxImpacts[termId] = impact;
+        }
+        return impact;
+    }
+
+    /**
+     * Returns how much the given document's final score grows per unit of (TF score *
+     * IDF score * query weight) a word contributes.
+     */
+    private double impactScale(int documentId) {
+        double norm = this.analyzer.documentNorm(documentId);
+        return norm == 0.0 ? 0.0 : this.boost(documentId) / norm;
+    }
+
+    private double termFrequency(Cursor cursor) {
+        return this.analyzer.termFrequency(cursor.documentId(), cursor.postings.count());
+    }
+
+    private double boost(int documentId) {
+        return this.boosts.applyAsDouble(documentId);
+    }
+
+    /**
+     * Walks through one word's posting list in document order.
+     */
+    private static class Cursor {
+        private final int termId;
+        private final PostingList list;
+        private final PostingList.Cursor postings;
+        private double factor;
+        private double upperBound;
+
+        // The sum of the upper bounds of this cursor and every cursor before it.
+        private double cumulativeBound;
+
+        public Cursor(int termId, PostingList list) {
+            this.termId = termId;
+            this.list = list;
+            this.postings = list.cursor();
+        }
+
+        /**
+         * Returns the id of the current document, or Integer.MAX_VALUE if we've gone
+         * past the end of the list.
+         */
+        public int documentId() {
+            return this.postings.documentId();
+        }
+
+        public void next() {
+            this.postings.next();
+        }
+
+        /**
+         * Moves forward to the first document whose id is at least the given id,
+         * skipping whole blocks of the posting list where possible.
+         */
+        public void seek(int documentId) {
+            this.postings.seek(documentId);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package search.misc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helper methods for writing strings and arrays to a DataOutput and reading them back.
+ *
+ * Every value is prefixed by its length as an int. We use these instead of
+ * DataOutput.writeUTF(...) because that method can't write strings whose encoded
+ * form is longer than 64KB.
+ */
+public class BinaryIO {
+    private BinaryIO() {
+    }
+
+    public static void writeString(DataOutput output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    public static String readString(DataInput input) throws IOException {
+        byte[] bytes = new byte[readLength(input)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeIntArray(DataOutput output, int[] values) throws IOException {
+        output.writeInt(values.length);
+        for (int value : values) {
+            output.writeInt(value);
+        }
+    }
+
+    public static int[] readIntArray(DataInput input) throws IOException {
+        int[] values = new int[readLength(input)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.readInt();
+        }
+        return values;
+    }
+
+    public static void writeDoubleArray(DataOutput output, double[] values) throws IOException {
+        output.writeInt(values.length);
+        for (double value : values) {
+            output.writeDouble(value);
+        }
+    }
+
+    public static double[] readDoubleArray(DataInput input) throws IOException {
+        double[] values = new double[readLength(input)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.readDouble();
+        }
+        return values;
+    }
+
+    private static int readLength(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Negative length " + length);
+        }
+        return length;
+    }
+}
@@ -84,17 +84,22 @@ public class Bridge {
             return (list, item) -> list.add(item);
         }
 
+        /**
+         * Merges two partial results when collecting a parallel stream.
+         *
+         * Each thread accumulates into its own set, so no locking is needed; here we
+         * just copy the smaller set into the larger one in place. This keeps each merge
+         * proportional to the smaller side instead of copying both sets every time.
+         */
         @Override
         public BinaryOperator<ISet<T>> combiner() {
             return (a, b) -> {
-                ISet<T> out = new ChainedHashSet<>();
-                for (T i : a) {
-                    out.add(i);
+                ISet<T> larger = a.size() >= b.size() ? a : b;
+                ISet<T> smaller = larger == a ? b : a;
+                for (T i : smaller) {
+                    larger.add(i);
                 }
-                for (T i : b) {
-                    out.add(i);
-                }
-                return out;
+                return larger;
             };
         }
 
@@ -105,7 +110,7 @@ public class Bridge {
 
         @Override
         public Set<Characteristics> characteristics() {
-            return EnumSet.of(Characteristics.IDENTITY_FINISH);
+            return EnumSet.of(Characteristics.IDENTITY_FINISH, Characteristics.UNORDERED);
         }
     }
 }
@@ -0,0 +1,229 @@
+package search.misc;
+
+import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import search.analyzers.TermDictionary;
+import search.models.Webpage;
+import search.models.WebpageSummary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Caches every parsed webpage in a corpus inside a single binary file, so restarting
+ * the search engine can skip both HTML parsing and tokenization.
+ *
+ * Each distinct word and each distinct URI is stored exactly once, in two tables at
+ * the end of the file; pages refer to them by index. When loading, we memory-map the
+ * file, build one String per distinct word and one URI per distinct URI, and share
+ * those objects between every page that uses them.
+ *
+ * File layout (all integers are big-endian; "varint" is an unsigned LEB128 integer,
+ * and "string" is a varint byte length followed by that many bytes of UTF-8):
+ *
+ *     int          MAGIC
+ *     int          VERSION
+ *     fingerprint  of the files the cache was built from (see CorpusFingerprint)
+ *     varint       number of pages, followed by that many pages:
+ *         varint       URI index of the page
+ *         string       title
+ *         string       blurb
+ *         varint       number of words, followed by each word's index
+ *         varint       number of links, followed by each link's URI index
+ *     varint       number of words, followed by each word as a string
+ *     varint       number of URIs, followed by each URI as a string
+ *     long         offset of the word table from the start of the file
+ */
+public class CorpusCache {
+    private static final int MAGIC = 0x4E4F4F44;
+    private static final int VERSION = 1;
+
+    /**
+     * Returns every webpage stored in the given cache file, or null if the file doesn't
+     * exist, wasn't built from a corpus with the given fingerprint, or can't be read.
+     */
+    public static ISet<Webpage> load(Path cacheFile, CorpusFingerprint expected) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            // A single mapping is limited to 2GB; we simply don't use caches that large.
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            if (!CorpusFingerprint.readFrom(buffer).equals(expected)) {
+                return null;
+            }
+            return decodePages(buffer);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException
+                | IndexOutOfBoundsException ex) {
+            // A truncated or otherwise corrupt cache is no worse than a missing one.
+            System.err.println("Ignoring unreadable corpus cache '" + cacheFile + "': " + ex);
+            return null;
+        }
+    }
+
+    private static ISet<Webpage> decodePages(ByteBuffer buffer) {
+        int pagesStart = buffer.position();
+
+        buffer.position((int) buffer.getLong(buffer.limit() - Long.BYTES));
+        String[] words = new String[readLength(buffer)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = readString(buffer);
+        }
+        URI[] uris = new URI[readLength(buffer)];
+        for (int i = 0; i < uris.length; i++) {
+            uris[i] = URI.create(readString(buffer));
+        }
+
+        buffer.position(pagesStart);
+        int numPages = readLength(buffer);
+        ISet<Webpage> pages = new ChainedHashSet<>();
+        for (int i = 0; i < numPages; i++) {
+            URI pageUri = uris[readVarInt(buffer)];
+            String title = readString(buffer);
+            String blurb = readString(buffer);
+
+            IList<String> pageWords = new DoubleLinkedList<>();
+            int numWords = readLength(buffer);
+            for (int j = 0; j < numWords; j++) {
+                pageWords.add(words[readVarInt(buffer)]);
+            }
+
+            IList<URI> links = new DoubleLinkedList<>();
+            int numLinks = readLength(buffer);
+            for (int j = 0; j < numLinks; j++) {
+                links.add(uris[readVarInt(buffer)]);
+            }
+
+            pages.add(new Webpage(pageUri, links, pageWords, title, blurb));
+        }
+        return pages;
+    }
+
+    /**
+     * Writes every given webpage to the cache file, replacing anything already there.
+     *
+     * We write to a temporary file first and then move it into place, so a crash
+     * half-way through never leaves a truncated cache behind.
+     */
+    public static void save(Path cacheFile, CorpusFingerprint fingerprint, ISet<Webpage> pages) {
+        Path temporary = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                encode(output, fingerprint, pages);
+            }
+            Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            // The cache is only an optimization: failing to write it shouldn't stop us.
+            System.err.println("Could not write corpus cache '" + cacheFile + "': " + ex);
+        }
+    }
+
+    private static void encode(DataOutputStream output, CorpusFingerprint fingerprint, ISet<Webpage> pages)
+            throws IOException {
+        TermDictionary words = new TermDictionary();
+        TermDictionary uris = new TermDictionary();
+
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        fingerprint.writeTo(output);
+
+        writeVarInt(output, pages.size());
+        for (Webpage page : pages) {
+            WebpageSummary summary = page.getSummary();
+            writeVarInt(output, uris.getOrAddId(page.getUri().toString()));
+            writeString(output, summary.getTitle());
+            writeString(output, summary.getBlurb());
+
+            writeVarInt(output, page.getWords().size());
+            for (String word : page.getWords()) {
+                writeVarInt(output, words.getOrAddId(word));
+            }
+
+            writeVarInt(output, page.getLinks().size());
+            for (URI link : page.getLinks()) {
+                writeVarInt(output, uris.getOrAddId(link.toString()));
+            }
+        }
+
+        long tablesOffset = output.size();
+        writeVarInt(output, words.size());
+        for (int i = 0; i < words.size(); i++) {
+            writeString(output, words.getTerm(i));
+        }
+        writeVarInt(output, uris.size());
+        for (int i = 0; i < uris.size(); i++) {
+            writeString(output, uris.getTerm(i));
+        }
+        output.writeLong(tablesOffset);
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer input) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte next = input.get();
+            value |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                // We only ever write non-negative values, so anything else is corrupt.
+                if (value < 0) {
+                    throw new IllegalArgumentException("Malformed varint");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Reads the length of something that follows in the file: a string, a table, or a
+     * list of indices. Every element takes at least one byte, so a length longer than
+     * what's left of the file must be corrupt, and we reject it before allocating
+     * anything that big.
+     */
+    private static int readLength(ByteBuffer input) {
+        int length = readVarInt(input);
+        if (length > input.remaining()) {
+            throw new IllegalArgumentException("Length " + length + " runs past the end of the cache");
+        }
+        return length;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(output, bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer input) {
+        byte[] bytes = new byte[readLength(input)];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
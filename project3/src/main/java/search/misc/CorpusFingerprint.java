@@ -0,0 +1,100 @@
+package search.misc;
+
+import search.misc.exceptions.DataExtractionException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A cheap summary of the files making up a corpus, used to tell whether anything
+ * we've cached about the corpus is still up to date.
+ *
+ * Two fingerprints are equal if the corpus has the same number of files with the
+ * same names, the same total size, and the same most recent modification time.
+ * This doesn't read the contents of any file, so it can miss an edit that changes
+ * neither a file's size nor its timestamp, but it is fast enough to check on
+ * every startup.
+ */
+public class CorpusFingerprint {
+    private final int fileCount;
+    private final long totalSize;
+    private final long lastModified;
+    private final long nameHash;
+
+    public CorpusFingerprint(int fileCount, long totalSize, long lastModified, long nameHash) {
+        this.fileCount = fileCount;
+        this.totalSize = totalSize;
+        this.lastModified = lastModified;
+        this.nameHash = nameHash;
+    }
+
+    /**
+     * Computes the fingerprint of the given files. The order of the files doesn't matter.
+     */
+    public static CorpusFingerprint of(Path[] files) {
+        long totalSize = 0;
+        long lastModified = 0;
+        long nameHash = 0;
+        try {
+            for (Path file : files) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                totalSize += attributes.size();
+                lastModified = Math.max(lastModified, attributes.lastModifiedTime().toMillis());
+                // Summing keeps the hash independent of the order we listed the files in.
+                nameHash += mix(file.toAbsolutePath().toString().hashCode());
+            }
+        } catch (IOException ex) {
+            throw new DataExtractionException("Could not read file attributes", ex);
+        }
+        return new CorpusFingerprint(files.length, totalSize, lastModified, nameHash);
+    }
+
+    private static long mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeInt(this.fileCount);
+        output.writeLong(this.totalSize);
+        output.writeLong(this.lastModified);
+        output.writeLong(this.nameHash);
+    }
+
+    public static CorpusFingerprint readFrom(DataInput input) throws IOException {
+        return new CorpusFingerprint(input.readInt(), input.readLong(), input.readLong(), input.readLong());
+    }
+
+    public static CorpusFingerprint readFrom(ByteBuffer input) {
+        return new CorpusFingerprint(input.getInt(), input.getLong(), input.getLong(), input.getLong());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || this.getClass() != other.getClass()) {
+            return false;
+        }
+        CorpusFingerprint that = (CorpusFingerprint) other;
+        return this.fileCount == that.fileCount
+                && this.totalSize == that.totalSize
+                && this.lastModified == that.lastModified
+                && this.nameHash == that.nameHash;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = this.fileCount;
+        result = 31 * result + Long.hashCode(this.totalSize);
+        result = 31 * result + Long.hashCode(this.lastModified);
+        result = 31 * result + Long.hashCode(this.nameHash);
+        return result;
+    }
+}
@@ -0,0 +1,211 @@
+package search.misc;
+
+import search.analyzers.PageRankAnalyzer;
+import search.analyzers.TfIdfAnalyzer;
+import search.misc.exceptions.DataExtractionException;
+import search.models.DocumentIdRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Everything the search engine computes while indexing a corpus, stored in a single
+ * file so a later run can skip indexing altogether.
+ *
+ * The header records which corpus the index was built from, so callers can check it
+ * is still up to date before reading the (much larger) rest of the file. The file
+ * ends with a CRC32 checksum of everything before it; we verify the checksum before
+ * we start decoding, so a truncated or damaged snapshot is rejected rather than
+ * producing a half-loaded index.
+ *
+ * File layout (all integers are big-endian):
+ *
+ *     int          MAGIC
+ *     int          VERSION
+ *     string       absolute path of the corpus folder
+ *     fingerprint  of the files the index was built from (see CorpusFingerprint)
+ *     registry     see DocumentIdRegistry.writeTo(...)
+ *     tf-idf       see TfIdfAnalyzer.writeTo(...)
+ *     page rank    see PageRankAnalyzer.writeTo(...)
+ *     long         CRC32 of every preceding byte
+ *
+ * Bump VERSION whenever any of these formats change: snapshots written with a
+ * different version are treated as missing.
+ */
+public class IndexSnapshot {
+    private static final int MAGIC = 0x4E4F4958;
+    private static final int VERSION = 4;
+
+    private final Header header;
+    private final DocumentIdRegistry registry;
+    private final TfIdfAnalyzer tfIdfAnalyzer;
+    private final PageRankAnalyzer pageRankAnalyzer;
+
+    public IndexSnapshot(Path corpusRoot, CorpusFingerprint fingerprint, DocumentIdRegistry registry,
+                         TfIdfAnalyzer tfIdfAnalyzer, PageRankAnalyzer pageRankAnalyzer) {
+        this.header = new Header(corpusRoot.toAbsolutePath().normalize(), fingerprint);
+        this.registry = registry;
+        this.tfIdfAnalyzer = tfIdfAnalyzer;
+        this.pageRankAnalyzer = pageRankAnalyzer;
+    }
+
+    public Header getHeader() {
+        return this.header;
+    }
+
+    public DocumentIdRegistry getRegistry() {
+        return this.registry;
+    }
+
+    public TfIdfAnalyzer getTfIdfAnalyzer() {
+        return this.tfIdfAnalyzer;
+    }
+
+    public PageRankAnalyzer getPageRankAnalyzer() {
+        return this.pageRankAnalyzer;
+    }
+
+    /**
+     * Returns the header of the given snapshot file, or null if the file doesn't exist
+     * or isn't a snapshot written by this version of the code.
+     *
+     * This only reads the first few bytes of the file: it does not verify the checksum.
+     */
+    public static Header readHeader(Path snapshotFile) {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            return readHeader(input);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static Header readHeader(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            return null;
+        }
+        Path corpusRoot = Paths.get(BinaryIO.readString(input));
+        return new Header(corpusRoot, CorpusFingerprint.readFrom(input));
+    }
+
+    /**
+     * Reads the given snapshot file.
+     *
+     * @throws DataExtractionException  if the file is missing, was written by a different
+     *                                  version of the code, or is damaged
+     */
+    public static IndexSnapshot read(Path snapshotFile) {
+        try {
+            verifyChecksum(snapshotFile);
+            try (DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+                Header header = readHeader(input);
+                if (header == null) {
+                    throw new DataExtractionException("'" + snapshotFile + "' is not a version "
+                            + VERSION + " index snapshot");
+                }
+                DocumentIdRegistry registry = DocumentIdRegistry.readFrom(input);
+                TfIdfAnalyzer tfIdfAnalyzer = TfIdfAnalyzer.readFrom(input, registry);
+                PageRankAnalyzer pageRankAnalyzer = PageRankAnalyzer.readFrom(input, registry);
+                return new IndexSnapshot(
+                        header.getCorpusRoot(), header.getFingerprint(),
+                        registry, tfIdfAnalyzer, pageRankAnalyzer);
+            }
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new DataExtractionException("Could not read index snapshot '" + snapshotFile + "'", ex);
+        }
+    }
+
+    private static void verifyChecksum(Path snapshotFile) throws IOException {
+        long payloadSize = Files.size(snapshotFile) - Long.BYTES;
+        if (payloadSize < 0) {
+            throw new DataExtractionException("Index snapshot '" + snapshotFile + "' is truncated");
+        }
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(raw, new CRC32());
+            byte[] buffer = new byte[1 << 16];
+            long remaining = payloadSize;
+            while (remaining > 0) {
+                int read = checked.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new DataExtractionException("Index snapshot '" + snapshotFile + "' is truncated");
+                }
+                remaining -= read;
+            }
+            long stored = new DataInputStream(raw).readLong();
+            if (stored != checked.getChecksum().getValue()) {
+                throw new DataExtractionException("Index snapshot '" + snapshotFile + "' is damaged");
+            }
+        }
+    }
+
+    /**
+     * Writes this snapshot to the given file, replacing anything already there.
+     *
+     * We write to a temporary file first and then move it into place, so a crash
+     * half-way through never leaves a truncated snapshot behind.
+     *
+     * @throws DataExtractionException  if the file could not be written
+     */
+    public void write(Path snapshotFile) {
+        Path temporary = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            try (OutputStream raw = new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16)) {
+                CheckedOutputStream checked = new CheckedOutputStream(raw, new CRC32());
+                DataOutputStream output = new DataOutputStream(checked);
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                BinaryIO.writeString(output, this.header.getCorpusRoot().toString());
+                this.header.getFingerprint().writeTo(output);
+                this.registry.writeTo(output);
+                this.tfIdfAnalyzer.writeTo(output);
+                this.pageRankAnalyzer.writeTo(output);
+
+                // The checksum itself isn't part of what it covers, so it skips 'checked'.
+                new DataOutputStream(raw).writeLong(checked.getChecksum().getValue());
+            }
+            Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new DataExtractionException("Could not write index snapshot '" + snapshotFile + "'", ex);
+        }
+    }
+
+    /**
+     * Identifies the corpus a snapshot was built from.
+     */
+    public static class Header {
+        private final Path corpusRoot;
+        private final CorpusFingerprint fingerprint;
+
+        public Header(Path corpusRoot, CorpusFingerprint fingerprint) {
+            this.corpusRoot = corpusRoot;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Returns the absolute path of the folder the corpus was loaded from.
+         */
+        public Path getCorpusRoot() {
+            return this.corpusRoot;
+        }
+
+        public CorpusFingerprint getFingerprint() {
+            return this.fingerprint;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package search.misc;
+
+/**
+ * Helpers for writing JSON by hand. Our responses are small and flat, so building
+ * them as strings is simpler than pulling in a JSON library.
+ */
+public class Json {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Returns the given string as a quoted JSON string literal, or 'null' if it's null.
+     *
+     * Besides the escapes JSON requires (quotes, backslashes and control characters), we
+     * also escape U+2028 and U+2029, which are fine in JSON but end a line in JavaScript,
+     * and '<', so a response can never be mistaken for HTML containing a script tag.
+     */
+    public static String quote(String text) {
+        if (text == null) {
+            return "null";
+        }
+        StringBuilder out = new StringBuilder(text.length() + 2);
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == '<' || c == '\u2028' || c == '\u2029') {
+                        out.append("\\u")
+                                .append(HEX_DIGITS[(c >> 12) & 0xF])
+                                .append(HEX_DIGITS[(c >> 8) & 0xF])
+                                .append(HEX_DIGITS[(c >> 4) & 0xF])
+                                .append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    /**
+     * Returns the given number as a JSON number, or 'null' if it's NaN or infinite
+     * (which JSON can't represent). Parsing the result with Double.parseDouble(...)
+     * gives back exactly the same number.
+     */
+    public static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "null";
+        }
+        return Double.toString(value);
+    }
+}
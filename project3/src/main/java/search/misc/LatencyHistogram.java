@@ -0,0 +1,114 @@
+package search.misc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how long requests take, so we can report latency percentiles without
+ * keeping every measurement around.
+ *
+ * Latencies are sorted into buckets whose bounds grow geometrically, by a factor of
+ * 2^(1/8) (about 9%) per bucket, from one microsecond up to over an hour. A
+ * percentile is reported as the upper bound of the bucket it falls in, so it is
+ * never understated, and overstated by at most 9%. The one exception is latencies
+ * over 2^32 microseconds (about 71 minutes): they all land in the last bucket, so
+ * they're clamped, and reported as exactly 2^32 microseconds.
+ *
+ * Recording is lock-free, so every request thread can record into the same
+ * histogram. Percentiles read while other threads are recording may or may not
+ * include the latest few measurements.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS_PER_DOUBLING = 8;
+
+    // Bucket 'b' holds latencies up to 2^(b / BUCKETS_PER_DOUBLING) microseconds, so
+    // the last bucket holds everything from 2^32 microseconds (about 71 minutes) up.
+    private static final int NUM_BUCKETS = 32 * BUCKETS_PER_DOUBLING + 1;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalNanos;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(NUM_BUCKETS);
+        this.totalNanos = new AtomicLong();
+    }
+
+    /**
+     * Records a single request that took the given number of nanoseconds.
+     */
+    public void record(long nanos) {
+        this.counts.incrementAndGet(bucketOf(nanos));
+        this.totalNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Records a single request that started at the given System.nanoTime().
+     */
+    public void recordSince(long startNanos) {
+        this.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the total time taken by every request recorded so far, in seconds.
+     */
+    public double totalSeconds() {
+        return this.totalNanos.get() / 1e9;
+    }
+
+    /**
+     * Returns the number of requests recorded so far.
+     */
+    public long count() {
+        long total = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            total += this.counts.get(bucket);
+        }
+        return total;
+    }
+
+    /**
+     * Returns (an upper bound on) the latency, in milliseconds, that the given fraction
+     * of requests took at most: 0.5 for the median, 0.99 for the 99th percentile, and
+     * so on. Returns 0.0 if nothing has been recorded yet. Latencies longer than
+     * about 71 minutes are clamped (see above), so the result never exceeds that.
+     *
+     * @throws IllegalArgumentException  if the fraction isn't between 0 and 1
+     */
+    public double percentile(double fraction) {
+        if (!(fraction >= 0.0 && fraction <= 1.0)) {
+            throw new IllegalArgumentException();
+        }
+        long[] snapshot = new long[NUM_BUCKETS];
+        long total = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            snapshot[bucket] = this.counts.get(bucket);
+            total += snapshot[bucket];
+        }
+        if (total == 0) {
+            return 0.0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            seen += snapshot[bucket];
+            if (seen >= rank) {
+                return upperBoundMillis(bucket);
+            }
+        }
+        return upperBoundMillis(NUM_BUCKETS - 1);
+    }
+
+    private static int bucketOf(long nanos) {
+        double micros = nanos / 1000.0;
+        if (micros <= 1.0) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(Math.log(micros) / Math.log(2.0) * BUCKETS_PER_DOUBLING);
+        return Math.min(bucket, NUM_BUCKETS - 1);
+    }
+
+    private static double upperBoundMillis(int bucket) {
+        return Math.pow(2.0, (double) bucket / BUCKETS_PER_DOUBLING) / 1000.0;
+    }
+}
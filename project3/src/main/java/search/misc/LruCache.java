@@ -0,0 +1,137 @@
+package search.misc;
+
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+
+/**
+ * A fixed-size cache that throws away the least recently used entry to make room for
+ * new ones, and counts how many lookups it could and couldn't answer.
+ *
+ * Entries live in a hash dictionary for lookups, and are also threaded onto a doubly
+ * linked list in order of use, most recent first, so both finding an entry and
+ * moving it to the front are constant time.
+ *
+ * Every method is synchronized, so a single cache can be shared between threads.
+ */
+public class LruCache<K, V> {
+    private final int capacity;
+    private IDictionary<K, Entry<K, V>> entries;
+
+    // The list of entries is circular: 'sentinel.next' is the most recently used entry,
+    // and 'sentinel.previous' is the least recently used one.
+    private final Entry<K, V> sentinel;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache holding at most the given number of entries. A cache with
+     * a capacity of zero never stores anything.
+     *
+     * @throws IllegalArgumentException  if the capacity is negative
+     */
+    public LruCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.entries = new ChainedHashDictionary<>();
+        this.sentinel = new Entry<>(null, null);
+        this.sentinel.previous = this.sentinel;
+        this.sentinel.next = this.sentinel;
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * Returns the value for the given key and marks it as the most recently used entry,
+     * or returns null if the key isn't in the cache.
+     */
+    public synchronized V get(K key) {
+        if (!this.entries.containsKey(key)) {
+            this.misses++;
+            return null;
+        }
+        Entry<K, V> entry = this.entries.get(key);
+        this.unlink(entry);
+        this.linkFirst(entry);
+        this.hits++;
+        return entry.value;
+    }
+
+    /**
+     * Stores the given value under the given key, replacing any value already there, and
+     * evicts the least recently used entry if the cache is now over capacity.
+     */
+    public synchronized void put(K key, V value) {
+        if (this.capacity == 0) {
+            return;
+        }
+        if (this.entries.containsKey(key)) {
+            this.unlink(this.entries.get(key));
+        }
+        Entry<K, V> entry = new Entry<>(key, value);
+        this.entries.put(key, entry);
+        this.linkFirst(entry);
+        if (this.entries.size() > this.capacity) {
+            Entry<K, V> eldest = this.sentinel.previous;
+            this.unlink(eldest);
+            this.entries.remove(eldest.key);
+        }
+    }
+
+    /**
+     * Throws away every entry. The hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        this.entries = new ChainedHashDictionary<>();
+        this.sentinel.previous = this.sentinel;
+        this.sentinel.next = this.sentinel;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of calls to get(...) that found their key.
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of calls to get(...) that didn't find their key.
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    private void unlink(Entry<K, V> entry) {
+        entry.previous.next = entry.next;
+        entry.next.previous = entry.previous;
+    }
+
+    private void linkFirst(Entry<K, V> entry) {
+        entry.previous = this.sentinel;
+        entry.next = this.sentinel.next;
+        this.sentinel.next.previous = entry;
+        this.sentinel.next = entry;
+    }
+
+    private static class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private Entry<K, V> previous;
+        private Entry<K, V> next;
+
+        public Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
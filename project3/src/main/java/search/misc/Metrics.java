@@ -0,0 +1,183 @@
+package search.misc;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A registry of named measurements, which can be written out in the Prometheus text
+ * exposition format (https://prometheus.io/docs/instrumenting/exposition_formats/).
+ *
+ * There are three kinds of measurement:
+ *
+ * - Timers, which record how long something took each time it happened, and are
+ *   reported as Prometheus summaries: the median, 90th and 99th percentile, plus the
+ *   total time and number of times (see LatencyHistogram).
+ * - Counters, which only ever go up. We either count them ourselves, or read them from
+ *   something else that counts.
+ * - Gauges, which can go up and down, and are read whenever the metrics are written.
+ *
+ * Timers and counters are created the first time they're asked for, and the same
+ * object is returned every time after that, so several components can share them.
+ * Metrics are written out in the order they were first registered.
+ */
+public class Metrics {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final IList<Metric> metrics;
+    private final IDictionary<String, Metric> metricsByName;
+
+    public Metrics() {
+        this.metrics = new DoubleLinkedList<>();
+        this.metricsByName = new ChainedHashDictionary<>();
+    }
+
+    /**
+     * Returns the timer with the given name, creating it if it doesn't exist yet. By
+     * Prometheus convention, the name should end in '_seconds'.
+     *
+     * @throws IllegalArgumentException  if the name isn't a valid metric name, or is
+     *                                   already used by a metric that isn't a timer
+     */
+    public synchronized LatencyHistogram timer(String name, String help) {
+        Metric metric = this.getOrRegister(name, help, Kind.TIMER);
+        if (metric.histogram == null) {
+            metric.histogram = new LatencyHistogram();
+        }
+        return metric.histogram;
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if it doesn't exist yet. By
+     * Prometheus convention, the name should end in '_total'.
+     *
+     * @throws IllegalArgumentException  if the name isn't a valid metric name, or is
+     *                                   already used by a metric that isn't a counter
+     *                                   we count ourselves
+     */
+    public synchronized AtomicLong counter(String name, String help) {
+        Metric metric = this.getOrRegister(name, help, Kind.COUNTER);
+        if (metric.counter == null) {
+            metric.counter = new AtomicLong();
+        }
+        return metric.counter;
+    }
+
+    /**
+     * Registers a counter whose value is read from the given function, replacing any
+     * function registered under the same name.
+     *
+     * @throws IllegalArgumentException  if the name isn't a valid metric name, or is
+     *                                   already used by a metric that isn't a counter
+     *                                   read from a function
+     */
+    public synchronized void counter(String name, String help, DoubleSupplier value) {
+        this.getOrRegister(name, help, Kind.FUNCTION_COUNTER).value = value;
+    }
+
+    /**
+     * Registers a gauge whose value is read from the given function, replacing any
+     * function registered under the same name.
+     *
+     * @throws IllegalArgumentException  if the name isn't a valid metric name, or is
+     *                                   already used by a metric that isn't a gauge
+     */
+    public synchronized void gauge(String name, String help, DoubleSupplier value) {
+        this.getOrRegister(name, help, Kind.GAUGE).value = value;
+    }
+
+    /**
+     * Returns every metric in the Prometheus text format.
+     */
+    public synchronized String toPrometheusText() {
+        StringBuilder out = new StringBuilder();
+        for (Metric metric : this.metrics) {
+            out.append("# HELP ").append(metric.name).append(' ').append(escapeHelp(metric.help)).append('\n');
+            out.append("# TYPE ").append(metric.name).append(' ').append(metric.kind.type).append('\n');
+            if (metric.histogram != null) {
+                // Prometheus expects the quantiles of a timer that's never been used to be NaN.
+                boolean empty = metric.histogram.count() == 0;
+                for (double quantile : QUANTILES) {
+                    double seconds = empty ? Double.NaN : metric.histogram.percentile(quantile) / 1000.0;
+                    out.append(metric.name).append("{quantile=\"").append(quantile).append("\"} ")
+                            .append(format(seconds)).append('\n');
+                }
+                out.append(metric.name).append("_sum ").append(format(metric.histogram.totalSeconds())).append('\n');
+                out.append(metric.name).append("_count ").append(metric.histogram.count()).append('\n');
+            } else if (metric.counter != null) {
+                out.append(metric.name).append(' ').append(metric.counter.get()).append('\n');
+            } else {
+                out.append(metric.name).append(' ').append(format(metric.value.getAsDouble())).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private Metric getOrRegister(String name, String help, Kind kind) {
+        if (!name.matches("[a-zA-Z_:][a-zA-Z0-9_:]*")) {
+            throw new IllegalArgumentException("'" + name + "' is not a valid metric name");
+        }
+        if (this.metricsByName.containsKey(name)) {
+            Metric metric = this.metricsByName.get(name);
+            if (metric.kind != kind) {
+                throw new IllegalArgumentException("'" + name + "' is already a different kind of metric");
+            }
+            return metric;
+        }
+        Metric metric = new Metric(name, help, kind);
+        this.metrics.add(metric);
+        this.metricsByName.put(name, metric);
+        return metric;
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        } else if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    private enum Kind {
+        TIMER("summary"),
+        COUNTER("counter"),
+        FUNCTION_COUNTER("counter"),
+        GAUGE("gauge");
+
+        // The Prometheus metric type we report this kind of metric as.
+        private final String type;
+
+        Kind(String type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * A single metric. Depending on its kind, exactly one of 'histogram' (for timers),
+     * 'counter' (for counters we count ourselves) or 'value' (for everything read from a
+     * function) is set.
+     */
+    private static class Metric {
+        private final String name;
+        private final String help;
+        private final Kind kind;
+        private LatencyHistogram histogram;
+        private AtomicLong counter;
+        private DoubleSupplier value;
+
+        public Metric(String name, String help, Kind kind) {
+            this.name = name;
+            this.help = help;
+            this.kind = kind;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package search.models;
+
+import datastructures.concrete.dictionaries.OpenAddressingDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.ISet;
+import misc.exceptions.NoSuchKeyException;
+import search.misc.BinaryIO;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Assigns every webpage a dense integer id: the first page registered gets id 0,
+ * the next gets id 1, and so on.
+ *
+ * The analyzers use these ids to store per-page data in plain arrays instead of
+ * dictionaries keyed by URI, so looking up a score is an array access rather than
+ * a hash of the page's URI. This class is the one place that translates between
+ * the two, and also keeps each page's summary so we only need to build Result
+ * objects for the handful of pages we actually show the user.
+ *
+ * Removing a page doesn't free its id: the page is only marked as removed, so every
+ * other page keeps its id (and its place in the analyzers' arrays). Registering the
+ * same URI again brings the page back under its old id.
+ */
+public class DocumentIdRegistry {
+    private IDictionary<URI, Integer> ids;
+    private URI[] uris;
+    private WebpageSummary[] summaries;
+    private boolean[] removed;
+    private int size;
+    private int numRemoved;
+
+    public DocumentIdRegistry() {
+        this.ids = new OpenAddressingDictionary<>();
+        this.uris = new URI[16];
+        this.summaries = new WebpageSummary[16];
+        this.removed = new boolean[16];
+        this.size = 0;
+        this.numRemoved = 0;
+    }
+
+    /**
+     * Returns a registry containing every given webpage.
+     */
+    public static DocumentIdRegistry of(ISet<Webpage> webpages) {
+        DocumentIdRegistry registry = new DocumentIdRegistry();
+        for (Webpage page : webpages) {
+            registry.register(page);
+        }
+        return registry;
+    }
+
+    /**
+     * Assigns the given webpage the next available id and returns it. If the page has
+     * already been registered, returns its existing id instead, bringing the page back
+     * if it was removed and replacing its summary with the given page's.
+     */
+    public int register(Webpage page) {
+        Integer existing = this.ids.getOrDefault(page.getUri(), null);
+        if (existing != null) {
+            if (this.removed[existing]) {
+                this.removed[existing] = false;
+                this.numRemoved--;
+            }
+            this.summaries[existing] = page.getSummary();
+            return existing;
+        }
+        return this.add(page.getUri(), page.getSummary());
+    }
+
+    private int add(URI uri, WebpageSummary summary) {
+        if (this.size == this.uris.length) {
+            URI[] newUris = new URI[this.size * 2];
+            WebpageSummary[] newSummaries = new WebpageSummary[this.size * 2];
+            boolean[] newRemoved = new boolean[this.size * 2];
+            System.arraycopy(this.uris, 0, newUris, 0, this.size);
+            System.arraycopy(this.summaries, 0, newSummaries, 0, this.size);
+            System.arraycopy(this.removed, 0, newRemoved, 0, this.size);
+            this.uris = newUris;
+            this.summaries = newSummaries;
+            this.removed = newRemoved;
+        }
+        int id = this.size;
+        this.ids.put(uri, id);
+        this.uris[id] = uri;
+        this.summaries[id] = summary;
+        this.size++;
+        return id;
+    }
+
+    /**
+     * Marks the page with the given URI as removed. It keeps its id, so looking it up
+     * still works, but contains(...) returns 'false' for it until it's registered again.
+     *
+     * @throws NoSuchKeyException  if no page with that URI has been registered
+     */
+    public void remove(URI uri) {
+        int id = this.ids.get(uri);
+        if (!this.removed[id]) {
+            this.removed[id] = true;
+            this.numRemoved++;
+        }
+    }
+
+    /**
+     * Returns 'true' if a page has the given id and hasn't been removed.
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < this.size && !this.removed[id];
+    }
+
+    /**
+     * Returns the id of the page with the given URI. Removed pages keep their id.
+     *
+     * @throws NoSuchKeyException  if no page with that URI has been registered
+     */
+    public int getId(URI uri) {
+        return this.ids.get(uri);
+    }
+
+    /**
+     * Returns the id of the page with the given URI, or 'defaultId' if no page with that
+     * URI has been registered.
+     */
+    public int getIdOrDefault(URI uri, int defaultId) {
+        Integer id = this.ids.getOrDefault(uri, null);
+        return id == null ? defaultId : id;
+    }
+
+    /**
+     * Returns the URI of the page with the given id.
+     */
+    public URI getUri(int id) {
+        this.checkId(id);
+        return this.uris[id];
+    }
+
+    /**
+     * Returns the summary of the page with the given id.
+     */
+    public WebpageSummary getSummary(int id) {
+        this.checkId(id);
+        return this.summaries[id];
+    }
+
+    /**
+     * Returns the number of registered pages, including removed ones. Ids range from 0
+     * up to (but not including) this number.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of registered pages that haven't been removed.
+     */
+    public int numActivePages() {
+        return this.size - this.numRemoved;
+    }
+
+    /**
+     * Writes every registered page's URI, summary and whether it was removed, in id order.
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeInt(this.size);
+        for (int id = 0; id < this.size; id++) {
+            BinaryIO.writeString(output, this.uris[id].toString());
+            BinaryIO.writeString(output, this.summaries[id].getTitle());
+            BinaryIO.writeString(output, this.summaries[id].getBlurb());
+            output.writeBoolean(this.removed[id]);
+        }
+    }
+
+    /**
+     * Reads a registry written by writeTo(...). Every page keeps the id it had when
+     * it was written.
+     */
+    public static DocumentIdRegistry readFrom(DataInput input) throws IOException {
+        DocumentIdRegistry registry = new DocumentIdRegistry();
+        int size = input.readInt();
+        for (int id = 0; id < size; id++) {
+            URI uri = URI.create(BinaryIO.readString(input));
+            String title = BinaryIO.readString(input);
+            String blurb = BinaryIO.readString(input);
+            registry.add(uri, new WebpageSummary(uri, title, blurb));
+            if (input.readBoolean()) {
+                registry.remove(uri);
+            }
+        }
+        return registry;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= this.size) {
+            throw new IndexOutOfBoundsException("No page has the id " + id);
+        }
+    }
+}
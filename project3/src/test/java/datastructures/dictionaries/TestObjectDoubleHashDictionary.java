@@ -0,0 +1,134 @@
+package datastructures.dictionaries;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import datastructures.concrete.KVPair;
+import datastructures.concrete.dictionaries.ObjectDoubleHashDictionary;
+import datastructures.interfaces.IObjectDoubleDictionary;
+import misc.BaseTest;
+import misc.exceptions.NoSuchKeyException;
+import org.junit.Test;
+
+public class TestObjectDoubleHashDictionary extends BaseTest {
+    public static final double DELTA = 0.000001;
+
+    protected <K> IObjectDoubleDictionary<K> newDictionary() {
+        return new ObjectDoubleHashDictionary<>();
+    }
+
+    @Test(timeout=SECOND)
+    public void testPutAndGetBasic() {
+        IObjectDoubleDictionary<String> dict = this.newDictionary();
+        dict.put("a", 1.5);
+        dict.put("b", -2.0);
+        dict.put("a", 3.0);
+
+        assertEquals(2, dict.size());
+        assertEquals(3.0, dict.get("a"), DELTA);
+        assertEquals(-2.0, dict.get("b"), DELTA);
+        assertEquals(7.0, dict.getOrDefault("c", 7.0), DELTA);
+    }
+
+    @Test(timeout=SECOND)
+    public void testGetMissingKey() {
+        IObjectDoubleDictionary<String> dict = this.newDictionary();
+        try {
+            dict.get("missing");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // This is ok: do nothing
+        }
+        try {
+            dict.remove("missing");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // This is ok: do nothing
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testAddTo() {
+        IObjectDoubleDictionary<String> dict = this.newDictionary();
+        assertEquals(0.25, dict.addTo("x", 0.25), DELTA);
+        assertEquals(0.75, dict.addTo("x", 0.5), DELTA);
+        assertEquals(1, dict.size());
+        assertEquals(0.75, dict.get("x"), DELTA);
+    }
+
+    @Test(timeout=SECOND)
+    public void testNullKey() {
+        IObjectDoubleDictionary<String> dict = this.newDictionary();
+        dict.put(null, 4.0);
+        assertTrue(dict.containsKey(null));
+        assertEquals(4.0, dict.remove(null), DELTA);
+        assertFalse(dict.containsKey(null));
+        assertTrue(dict.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testRemoveWithCollisions() {
+        IObjectDoubleDictionary<Wrapper<Integer>> dict = this.newDictionary();
+        for (int i = 0; i < 200; i++) {
+            dict.put(new Wrapper<>(i, 3), i);
+        }
+        for (int i = 0; i < 200; i += 2) {
+            assertEquals(i, dict.remove(new Wrapper<>(i, 3)), DELTA);
+        }
+        assertEquals(100, dict.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 2 == 1, dict.containsKey(new Wrapper<>(i, 3)));
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testCursorVisitsEveryEntryOnce() {
+        IObjectDoubleDictionary<Integer> dict = this.newDictionary();
+        for (int i = 0; i < 1000; i++) {
+            dict.put(i, i * 2.0);
+        }
+
+        boolean[] seen = new boolean[1000];
+        IObjectDoubleDictionary.Cursor<Integer> cursor = dict.cursor();
+        int count = 0;
+        while (cursor.advance()) {
+            int key = cursor.key();
+            assertFalse(seen[key]);
+            seen[key] = true;
+            assertEquals(key * 2.0, cursor.value(), DELTA);
+            count++;
+        }
+        assertEquals(1000, count);
+    }
+
+    @Test(timeout=SECOND)
+    public void testIterator() {
+        IObjectDoubleDictionary<String> dict = this.newDictionary();
+        dict.put("a", 1.0);
+        dict.put("b", 2.0);
+
+        double sum = 0.0;
+        int count = 0;
+        for (KVPair<String, Double> pair : dict) {
+            assertEquals(dict.get(pair.getKey()), pair.getValue(), DELTA);
+            sum += pair.getValue();
+            count++;
+        }
+        assertEquals(2, count);
+        assertEquals(3.0, sum, DELTA);
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testManyEntries() {
+        IObjectDoubleDictionary<Integer> dict = this.newDictionary();
+        int limit = 200000;
+        for (int i = 0; i < limit; i++) {
+            dict.addTo(i % 1000, 1.0);
+            dict.put(-i - 1, i);
+        }
+        assertEquals(1000 + limit, dict.size());
+        assertEquals(limit / 1000.0, dict.get(999), DELTA);
+        assertEquals(limit - 1.0, dict.get(-limit), DELTA);
+    }
+}
@@ -0,0 +1,104 @@
+package datastructures.dictionaries;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+
+import datastructures.concrete.dictionaries.OpenAddressingDictionary;
+import datastructures.interfaces.IDictionary;
+import org.junit.Test;
+
+public class TestOpenAddressingDictionary extends TestDictionary {
+    protected <K, V> IDictionary<K, V> newDictionary() {
+        return new OpenAddressingDictionary<>();
+    }
+
+    @Test(timeout=SECOND)
+    public void testManyObjectsWithSameHashCode() {
+        IDictionary<Wrapper<String>, Integer> map = this.newDictionary();
+        for (int i = 0; i < 1000; i++) {
+            map.put(new Wrapper<>("" + i, 0), i);
+        }
+
+        for (int i = 999; i >= 0; i--) {
+            String key = "" + i;
+            assertEquals(i, map.get(new Wrapper<>(key, 0)));
+
+            assertFalse(map.containsKey(new Wrapper<>(key + "a", 0)));
+        }
+
+        assertEquals(1000, map.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testNegativeHashCode() {
+        IDictionary<Wrapper<String>, String> dict = this.newDictionary();
+
+        Wrapper<String> key1 = new Wrapper<>("foo", -1);
+        Wrapper<String> key2 = new Wrapper<>("bar", -100000);
+        Wrapper<String> key3 = new Wrapper<>("baz", 1);
+        Wrapper<String> key4 = new Wrapper<>("qux", -4);
+
+        dict.put(key1, "val1");
+        dict.put(key2, "val2");
+        dict.put(key3, "val3");
+
+        assertTrue(dict.containsKey(key1));
+        assertTrue(dict.containsKey(key2));
+        assertTrue(dict.containsKey(key3));
+        assertFalse(dict.containsKey(key4));
+
+        dict.remove(key1);
+        assertFalse(dict.containsKey(key1));
+        assertEquals("val2", dict.get(key2));
+        assertEquals("val3", dict.get(key3));
+    }
+
+    @Test(timeout=SECOND)
+    public void testRemoveFromMiddleOfCollisionRun() {
+        // Every key lands in the same home slot, so removing one from the middle
+        // of the run must shift the rest back without losing any of them.
+        IDictionary<Wrapper<Integer>, Integer> dict = this.newDictionary();
+        for (int i = 0; i < 50; i++) {
+            dict.put(new Wrapper<>(i, 7), i);
+        }
+
+        for (int i = 0; i < 50; i += 2) {
+            assertEquals(i, dict.remove(new Wrapper<>(i, 7)));
+        }
+
+        assertEquals(25, dict.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i % 2 == 1, dict.containsKey(new Wrapper<>(i, 7)));
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testInterleavedPutAndRemove() {
+        IDictionary<Integer, Integer> dict = this.newDictionary();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 1000; i++) {
+                dict.put(round * 1000 + i, i);
+            }
+            for (int i = 0; i < 1000; i += 3) {
+                dict.remove(round * 1000 + i);
+            }
+        }
+
+        assertEquals(10 * 666, dict.size());
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i % 3 != 0, dict.containsKey(round * 1000 + i));
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testPresizedDictionary() {
+        IDictionary<String, Integer> dict = new OpenAddressingDictionary<>(10000);
+        for (int i = 0; i < 10000; i++) {
+            dict.put("key" + i, i);
+        }
+        assertEquals(10000, dict.size());
+        assertEquals(1234, dict.get("key1234"));
+    }
+}
@@ -1,9 +1,12 @@
 package datastructures.sorting;
 
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import misc.BaseTest;
 import datastructures.concrete.ArrayHeap;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
 import datastructures.interfaces.IPriorityQueue;
 import misc.exceptions.EmptyContainerException;
 import org.junit.Test;
@@ -153,4 +156,127 @@ public class TestArrayHeapFunctionality extends BaseTest {
             assertEquals(heap.removeMin(), 1);
         }
     }
+    
+    @Test(timeout=SECOND)
+    public void testReplaceMinBasic() {
+        IPriorityQueue<Integer> heap = this.makeInstance();
+        for (int i = 0; i < 20; i++) {
+            heap.insert(i);
+        }
+        assertEquals(0, heap.replaceMin(100));
+        assertEquals(1, heap.replaceMin(-5));
+        assertEquals(20, heap.size());
+        assertEquals(-5, heap.removeMin());
+        for (int i = 2; i < 20; i++) {
+            assertEquals(i, heap.removeMin());
+        }
+        assertEquals(100, heap.removeMin());
+        assertTrue(heap.isEmpty());
+    }
+    
+    @Test(timeout=SECOND)
+    public void testReplaceMinErrorHandle() {
+        IPriorityQueue<Integer> heap = this.makeInstance();
+        try {
+            heap.replaceMin(3);
+            fail("Expected EmptyContainerException");
+        } catch (EmptyContainerException ex) {
+            // do nothing: this is ok
+        }
+        heap.insert(1);
+        try {
+            heap.replaceMin(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+        assertEquals(1, heap.peekMin());
+    }
+    
+    @Test(timeout=SECOND)
+    public void testReplaceMinRandom() {
+        IPriorityQueue<Integer> heap = this.makeInstance();
+        Random rand = new Random(373);
+        int[] counter = new int[1000];
+        for (int i = 0; i < 200; i++) {
+            int element = rand.nextInt(1000);
+            counter[element]++;
+            heap.insert(element);
+        }
+        for (int i = 0; i < 500; i++) {
+            int element = rand.nextInt(1000);
+            counter[element]++;
+            counter[heap.replaceMin(element)]--;
+        }
+        for (int value = 0; value < counter.length; value++) {
+            for (int j = 0; j < counter[value]; j++) {
+                assertEquals(value, heap.removeMin());
+            }
+        }
+        assertTrue(heap.isEmpty());
+    }
+    
+    @Test(timeout=SECOND)
+    public void testHeapifyConstructor() {
+        IList<Integer> items = new DoubleLinkedList<>();
+        for (int i = 0; i < 500; i++) {
+            items.add((i * 37) % 500);
+        }
+        IPriorityQueue<Integer> heap = new ArrayHeap<>(items);
+        assertEquals(500, heap.size());
+        assertEquals(500, items.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, heap.removeMin());
+        }
+        assertTrue(heap.isEmpty());
+        
+        heap = new ArrayHeap<>(new DoubleLinkedList<Integer>());
+        assertTrue(heap.isEmpty());
+        heap.insert(3);
+        assertEquals(3, heap.peekMin());
+    }
+    
+    @Test(timeout=SECOND)
+    public void testAddAll() {
+        ArrayHeap<Integer> heap = new ArrayHeap<>();
+        heap.insert(50);
+        heap.insert(-1);
+        IList<Integer> many = new DoubleLinkedList<>();
+        for (int i = 99; i >= 0; i--) {
+            many.add(i);
+        }
+        heap.addAll(many);
+        IList<Integer> few = new DoubleLinkedList<>();
+        few.add(-2);
+        few.add(200);
+        heap.addAll(few);
+        assertEquals(104, heap.size());
+        
+        assertEquals(-2, heap.removeMin());
+        assertEquals(-1, heap.removeMin());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, heap.removeMin());
+            if (i == 50) {
+                assertEquals(50, heap.removeMin());
+            }
+        }
+        assertEquals(200, heap.removeMin());
+    }
+    
+    @Test(timeout=SECOND)
+    public void testAddAllErrorHandle() {
+        ArrayHeap<Integer> heap = new ArrayHeap<>();
+        heap.insert(1);
+        IList<Integer> items = new DoubleLinkedList<>();
+        items.add(0);
+        items.add(null);
+        try {
+            heap.addAll(items);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+        assertEquals(1, heap.size());
+        assertEquals(1, heap.peekMin());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package datastructures.sorting;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import misc.BaseTest;
+import datastructures.concrete.DoubleIntHeap;
+import misc.exceptions.EmptyContainerException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class TestDoubleIntHeap extends BaseTest {
+    @Test(timeout=SECOND)
+    public void testKeepsBiggestKeys() {
+        DoubleIntHeap heap = new DoubleIntHeap(5);
+        for (int i = 0; i < 100; i++) {
+            heap.offer((i * 37) % 100 / 10.0, i);
+        }
+        assertEquals(5, heap.size());
+        for (int i = 95; i < 100; i++) {
+            assertEquals(i / 10.0, heap.peekMinKey(), 0.0);
+            int value = heap.removeMin();
+            assertEquals(i, (value * 37) % 100);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testOfferResult() {
+        DoubleIntHeap heap = new DoubleIntHeap(2);
+        assertTrue(heap.offer(1.0, 1));
+        assertTrue(heap.offer(3.0, 3));
+        assertFalse(heap.offer(0.5, 0));
+        assertTrue(heap.offer(2.0, 2));
+        assertEquals(2.0, heap.peekMinKey(), 0.0);
+        assertEquals(2, heap.peekMinValue());
+    }
+
+    @Test(timeout=SECOND)
+    public void testTiesPreferSmallerValues() {
+        DoubleIntHeap heap = new DoubleIntHeap(3);
+        for (int i = 9; i >= 0; i--) {
+            heap.offer(1.0, i);
+        }
+        assertEquals(2, heap.removeMin());
+        assertEquals(1, heap.removeMin());
+        assertEquals(0, heap.removeMin());
+    }
+
+    @Test(timeout=SECOND)
+    public void testZeroCapacity() {
+        DoubleIntHeap heap = new DoubleIntHeap(0);
+        assertFalse(heap.offer(1.0, 1));
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testErrorHandle() {
+        DoubleIntHeap heap = new DoubleIntHeap(3);
+        try {
+            heap.removeMin();
+            fail("Expected EmptyContainerException");
+        } catch (EmptyContainerException ex) {
+            // do nothing: this is ok
+        }
+        try {
+            heap.peekMinKey();
+            fail("Expected EmptyContainerException");
+        } catch (EmptyContainerException ex) {
+            // do nothing: this is ok
+        }
+        try {
+            new DoubleIntHeap(-1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+        try {
+            new DoubleIntHeap(3, 1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testRandomAgainstSort() {
+        Random rand = new Random(373);
+        for (int arity = 2; arity <= 8; arity++) {
+            double[] keys = new double[2000];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = rand.nextInt(500) / 7.0;
+            }
+            DoubleIntHeap heap = new DoubleIntHeap(100, arity);
+            for (int i = 0; i < keys.length; i++) {
+                heap.offer(keys[i], i);
+            }
+            double[] sorted = Arrays.copyOf(keys, keys.length);
+            Arrays.sort(sorted);
+            for (int i = sorted.length - 100; i < sorted.length; i++) {
+                assertEquals(sorted[i], heap.peekMinKey(), 0.0);
+                assertEquals(sorted[i], keys[heap.removeMin()], 0.0);
+            }
+        }
+    }
+}
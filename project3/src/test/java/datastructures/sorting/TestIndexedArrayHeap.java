@@ -0,0 +1,159 @@
+package datastructures.sorting;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import misc.BaseTest;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.IndexedArrayHeap;
+import datastructures.interfaces.IList;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class TestIndexedArrayHeap extends BaseTest {
+    private IndexedArrayHeap<Integer> makeHeap(int size) {
+        IndexedArrayHeap<Integer> heap = new IndexedArrayHeap<>();
+        for (int i = 0; i < size; i++) {
+            heap.insert((i * 31) % size);
+        }
+        return heap;
+    }
+
+    @Test(timeout=SECOND)
+    public void testBasicUsage() {
+        IndexedArrayHeap<Integer> heap = this.makeHeap(100);
+        assertEquals(100, heap.size());
+        assertTrue(heap.contains(42));
+        assertFalse(heap.contains(100));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, heap.removeMin());
+            assertFalse(heap.contains(i));
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testRemove() {
+        IndexedArrayHeap<Integer> heap = this.makeHeap(100);
+        for (int i = 1; i < 100; i += 2) {
+            heap.remove(i);
+        }
+        assertEquals(50, heap.size());
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals(i, heap.removeMin());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testRemoveMissing() {
+        IndexedArrayHeap<Integer> heap = this.makeHeap(10);
+        try {
+            heap.remove(10);
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException ex) {
+            // do nothing: this is ok
+        }
+        assertEquals(10, heap.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testDecreaseKey() {
+        IndexedArrayHeap<Integer> heap = this.makeHeap(100);
+        heap.decreaseKey(99, -1);
+        heap.decreaseKey(50, -2);
+        assertFalse(heap.contains(99));
+        assertTrue(heap.contains(-1));
+        assertEquals(-2, heap.removeMin());
+        assertEquals(-1, heap.removeMin());
+        for (int i = 0; i < 99; i++) {
+            if (i != 50) {
+                assertEquals(i, heap.removeMin());
+            }
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testDecreaseKeyErrorHandle() {
+        IndexedArrayHeap<Integer> heap = this.makeHeap(10);
+        try {
+            heap.decreaseKey(3, 20);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+        try {
+            heap.decreaseKey(5, 2);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+        try {
+            heap.decreaseKey(20, 1);
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException ex) {
+            // do nothing: this is ok
+        }
+        assertEquals(10, heap.size());
+        assertEquals(0, heap.peekMin());
+    }
+
+    @Test(timeout=SECOND)
+    public void testDuplicatesAreRejected() {
+        IndexedArrayHeap<Integer> heap = this.makeHeap(10);
+        try {
+            heap.insert(4);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+        IList<Integer> items = new DoubleLinkedList<>();
+        items.add(1);
+        items.add(1);
+        try {
+            new IndexedArrayHeap<>(items);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testRandomOperations() {
+        Random rand = new Random(373);
+        IList<Integer> items = new DoubleLinkedList<>();
+        boolean[] present = new boolean[4000];
+        for (int i = 0; i < 1000; i++) {
+            items.add(i * 4);
+            present[i * 4] = true;
+        }
+        IndexedArrayHeap<Integer> heap = new IndexedArrayHeap<>(items);
+        for (int i = 0; i < 500; i++) {
+            int item = rand.nextInt(1000) * 4;
+            if (present[item]) {
+                if (rand.nextBoolean() && item > 0 && !present[item - 1]) {
+                    heap.decreaseKey(item, item - 1);
+                    present[item - 1] = true;
+                } else {
+                    heap.remove(item);
+                }
+                present[item] = false;
+            }
+        }
+        int previous = Integer.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            int min = heap.removeMin();
+            assertTrue(min > previous);
+            assertTrue(present[min]);
+            present[min] = false;
+            previous = min;
+        }
+        for (boolean remaining : present) {
+            assertFalse(remaining);
+        }
+    }
+}
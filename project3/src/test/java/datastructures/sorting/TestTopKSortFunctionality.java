@@ -115,4 +115,38 @@ public class TestTopKSortFunctionality extends BaseTest {
             assertEquals(top.get(i + 80), 1);
         }
     }
+    
+    @Test(timeout=SECOND)
+    public void testTopKFromIterator() {
+        IList<Integer> list = new DoubleLinkedList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add((i * 7919) % 1000);
+        }
+        IList<Integer> top = Searcher.topK(10, list.iterator());
+        assertEquals(10, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(990 + i, top.get(i));
+        }
+        assertEquals(1000, list.size());
+    }
+    
+    @Test(timeout=SECOND)
+    public void testTopKFromIteratorSmallInput() {
+        IList<Integer> list = new DoubleLinkedList<>();
+        list.add(3);
+        list.add(1);
+        list.add(2);
+        IList<Integer> top = Searcher.topK(5, list.iterator());
+        assertEquals(3, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(i + 1, top.get(i));
+        }
+        assertEquals(0, Searcher.topK(0, list.iterator()).size());
+        try {
+            Searcher.topK(-1, list.iterator());
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // Do nothing: this is ok
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package search;
+
+import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import search.models.Webpage;
+
+import java.net.URI;
+
+/**
+ * A tiny corpus shared by the tests that save and load pages or indexes.
+ */
+public class SamplePages {
+    public static Webpage buildPage(String uri, String words, String... links) {
+        IList<String> wordList = new DoubleLinkedList<>();
+        for (String word : words.split(" ")) {
+            wordList.add(word);
+        }
+        IList<URI> linkList = new DoubleLinkedList<>();
+        for (String link : links) {
+            linkList.add(URI.create(link));
+        }
+        // The blurb contains non-ASCII characters so we notice if they're mangled.
+        return new Webpage(URI.create(uri), linkList, wordList, "Title of " + uri, "Blurb \u00e9\u00e8 " + uri);
+    }
+
+    /**
+     * Returns three pages, which share some words and link to each other.
+     */
+    public static ISet<Webpage> buildPages() {
+        ISet<Webpage> pages = new ChainedHashSet<>();
+        pages.add(buildPage("http://example.com/a", "the cat sat on the mat", "http://example.com/b"));
+        pages.add(buildPage("http://example.com/b", "the dog", "http://example.com/a", "http://example.com/c"));
+        pages.add(buildPage("http://example.com/c", "cat"));
+        return pages;
+    }
+}
@@ -0,0 +1,214 @@
+package search;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+import org.junit.Test;
+import search.models.Result;
+import search.models.WebpageSummary;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+public class TestApiPaging extends BaseTest {
+    private Result[] buildRanking(double... scores) {
+        Result[] ranking = new Result[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            URI uri = URI.create("http://example.com/" + i);
+            ranking[i] = new Result(new WebpageSummary(uri, "Title " + i, "Blurb " + i), scores[i]);
+        }
+        return ranking;
+    }
+
+    private double[] repeat(double score, int count) {
+        double[] scores = new double[count];
+        Arrays.fill(scores, score);
+        return scores;
+    }
+
+    /**
+     * A search that returns the best 'k' of the given results, and remembers every 'k'
+     * it was asked for.
+     */
+    private static class FakeSearch implements IntFunction<Result[]> {
+        private final Result[] results;
+        private final IList<Integer> requests;
+
+        public FakeSearch(Result[] results) {
+            this.results = results;
+            this.requests = new DoubleLinkedList<>();
+        }
+
+        @Override
+        public Result[] apply(int k) {
+            this.requests.add(k);
+            return Arrays.copyOf(this.results, Math.min(k, this.results.length));
+        }
+    }
+
+    /**
+     * Follows the 'next' cursors from the first page to the last, like a client would,
+     * and returns the results it saw, in order.
+     */
+    private IList<Result> pageThrough(Result[] results, int limit) {
+        IList<Result> seen = new DoubleLinkedList<>();
+        double afterScore = Double.NaN;
+        int offset = 0;
+        while (true) {
+            Result[] ranking = ApiPaging.rank(new FakeSearch(results), afterScore, offset, limit);
+            int start = ApiPaging.findStart(ranking, afterScore, offset);
+            int end = Math.min(start + limit, ranking.length);
+            for (int i = start; i < end; i++) {
+                seen.add(ranking[i]);
+            }
+            int nextOffset = ApiPaging.nextOffset(ranking, start, end);
+            if (nextOffset < 0) {
+                return seen;
+            }
+            afterScore = ranking[end - 1].getScore();
+            offset = nextOffset;
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testFindStartWithOffset() {
+        Result[] ranking = buildRanking(0.9, 0.5, 0.5, 0.1);
+        assertEquals(0, ApiPaging.findStart(ranking, Double.NaN, 0));
+        assertEquals(2, ApiPaging.findStart(ranking, Double.NaN, 2));
+        assertEquals(4, ApiPaging.findStart(ranking, Double.NaN, 4));
+        assertEquals(4, ApiPaging.findStart(ranking, Double.NaN, Integer.MAX_VALUE));
+    }
+
+    @Test(timeout=SECOND)
+    public void testFindStartAfterScore() {
+        Result[] ranking = buildRanking(0.9, 0.5, 0.5, 0.5, 0.1);
+        assertEquals(1, ApiPaging.findStart(ranking, 0.5, 0));
+        assertEquals(3, ApiPaging.findStart(ranking, 0.5, 2));
+        // The offset only skips results tying with 'after_score', never the ones after.
+        assertEquals(4, ApiPaging.findStart(ranking, 0.5, 100));
+        assertEquals(4, ApiPaging.findStart(ranking, 0.3, 0));
+        assertEquals(0, ApiPaging.findStart(ranking, 1.0, 5));
+        // A score below every result leaves nothing to return.
+        assertEquals(5, ApiPaging.findStart(ranking, 0.01, 0));
+    }
+
+    @Test(timeout=SECOND)
+    public void testNextOffsetCountsTies() {
+        Result[] ranking = buildRanking(0.9, 0.5, 0.5, 0.5, 0.5, 0.1);
+        assertEquals(1, ApiPaging.nextOffset(ranking, 0, 1));
+        assertEquals(2, ApiPaging.nextOffset(ranking, 0, 3));
+        // The ties on earlier pages count too, since the cursor starts at the best result.
+        assertEquals(3, ApiPaging.nextOffset(ranking, 3, 4));
+        assertEquals(4, ApiPaging.nextOffset(ranking, 4, 5));
+    }
+
+    @Test(timeout=SECOND)
+    public void testNoNextOffsetOnLastOrEmptyPage() {
+        Result[] ranking = buildRanking(0.9, 0.5, 0.1);
+        assertEquals(-1, ApiPaging.nextOffset(ranking, 1, 3));
+        assertEquals(-1, ApiPaging.nextOffset(ranking, 3, 3));
+        assertEquals(-1, ApiPaging.nextOffset(ranking, 1, 1));
+        assertEquals(-1, ApiPaging.nextOffset(buildRanking(), 0, 0));
+    }
+
+    @Test(timeout=SECOND)
+    public void testNoNextOffsetPastMaxRankingSize() {
+        Result[] ranking = buildRanking(repeat(0.5, Webapp.API_MAX_RANKING_SIZE + 10));
+        assertEquals(3900, ApiPaging.nextOffset(ranking, 3800, 3900));
+        assertEquals(Webapp.API_MAX_RANKING_SIZE - 100, ApiPaging.nextOffset(ranking, 3896, 3996));
+        // The next page would need offset 3997 and limit 100, which would be refused.
+        assertEquals(-1, ApiPaging.nextOffset(ranking, 3897, 3997));
+    }
+
+    @Test(timeout=SECOND)
+    public void testPagingSeesEveryResultOnce() {
+        double[] scores = {0.9, 0.8, 0.5, 0.5, 0.5, 0.5, 0.5, 0.3, 0.3, 0.1, 0.0, 0.0, 0.0};
+        Result[] results = buildRanking(scores);
+        for (int limit = 1; limit <= scores.length + 1; limit++) {
+            IList<Result> seen = pageThrough(results, limit);
+            assertEquals(results.length, seen.size());
+            for (int i = 0; i < results.length; i++) {
+                assertEquals(results[i], seen.get(i));
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testPagingThroughLongTies() {
+        // Every page ends in the middle of the tie, so the ranking has to grow as the
+        // cursor's offset does.
+        Result[] results = buildRanking(repeat(0.5, 500));
+        IList<Result> seen = pageThrough(results, 30);
+        assertEquals(500, seen.size());
+        for (int i = 0; i < results.length; i++) {
+            assertEquals(results[i], seen.get(i));
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testRankAsksForPowersOfTwo() {
+        FakeSearch search = new FakeSearch(buildRanking(repeat(0.5, 1000)));
+        assertEquals(64, ApiPaging.rank(search, Double.NaN, 0, 20).length);
+        assertEquals(256, ApiPaging.rank(search, Double.NaN, 100, 50).length);
+        assertEquals(1000, ApiPaging.rank(search, Double.NaN, 900, 100).length);
+        assertEquals(64, (int) search.requests.get(0));
+        assertEquals(256, (int) search.requests.get(1));
+        assertEquals(1024, (int) search.requests.get(2));
+        assertEquals(3, search.requests.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testRankGrowsUntilCursorFits() {
+        double[] scores = new double[1000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = 1.0 - i / 1000.0;
+        }
+        FakeSearch search = new FakeSearch(buildRanking(scores));
+        // The page starts at result 300, so a ranking of 64, 128 or 256 is too short.
+        Result[] ranking = ApiPaging.rank(search, scores[300], 0, 20);
+        assertEquals(512, ranking.length);
+        assertEquals(4, search.requests.size());
+        assertEquals(64, (int) search.requests.get(0));
+        assertEquals(512, (int) search.requests.get(3));
+    }
+
+    @Test(timeout=SECOND)
+    public void testRankStopsWhenRankingIsComplete() {
+        // An 'after_score' below every result can never be satisfied, so we stop as
+        // soon as the search returns fewer results than we asked for.
+        FakeSearch search = new FakeSearch(buildRanking(repeat(0.5, 100)));
+        Result[] ranking = ApiPaging.rank(search, 0.01, 0, 20);
+        assertEquals(100, ranking.length);
+        assertEquals(100, ApiPaging.findStart(ranking, 0.01, 0));
+        assertEquals(2, search.requests.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testRankStopsAtMaxRankingSize() {
+        FakeSearch search = new FakeSearch(buildRanking(repeat(0.5, 3 * Webapp.API_MAX_RANKING_SIZE)));
+        Result[] ranking = ApiPaging.rank(search, 0.01, 0, 20);
+        assertEquals(Webapp.API_MAX_RANKING_SIZE, ranking.length);
+        for (int k : search.requests) {
+            assertTrue(k <= Webapp.API_MAX_RANKING_SIZE);
+        }
+        assertEquals(7, search.requests.size());
+
+        // A huge offset goes straight to the cap instead of doubling past it.
+        search = new FakeSearch(buildRanking(repeat(0.5, 3 * Webapp.API_MAX_RANKING_SIZE)));
+        ranking = ApiPaging.rank(search, 0.5, Webapp.API_MAX_RANKING_SIZE - 1, 1);
+        assertEquals(Webapp.API_MAX_RANKING_SIZE, ranking.length);
+        assertEquals(1, search.requests.size());
+        assertEquals(
+                Webapp.API_MAX_RANKING_SIZE - 1,
+                ApiPaging.findStart(ranking, 0.5, Webapp.API_MAX_RANKING_SIZE - 1));
+    }
+
+    @Test(timeout=SECOND)
+    public void testRankPassesOnBusySearches() {
+        assertNull(ApiPaging.rank(k -> null, Double.NaN, 0, 20));
+    }
+}
@@ -0,0 +1,101 @@
+package search;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static search.SamplePages.buildPages;
+
+import datastructures.interfaces.ISet;
+import misc.BaseTest;
+import org.junit.Test;
+import search.misc.CorpusCache;
+import search.misc.CorpusFingerprint;
+import search.models.Webpage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TestCorpusCache extends BaseTest {
+    private void assertSamePage(Webpage expected, Webpage actual) {
+        assertEquals(expected.getUri(), actual.getUri());
+        assertEquals(expected.getSummary(), actual.getSummary());
+        assertEquals(expected.getWords().size(), actual.getWords().size());
+        for (int i = 0; i < expected.getWords().size(); i++) {
+            assertEquals(expected.getWords().get(i), actual.getWords().get(i));
+        }
+        assertEquals(expected.getLinks().size(), actual.getLinks().size());
+        for (int i = 0; i < expected.getLinks().size(); i++) {
+            assertEquals(expected.getLinks().get(i), actual.getLinks().get(i));
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testRoundTrip() throws IOException {
+        Path cacheFile = Files.createTempFile("corpus", ".cache");
+        try {
+            CorpusFingerprint fingerprint = new CorpusFingerprint(3, 100, 12345, 42);
+            ISet<Webpage> pages = buildPages();
+            CorpusCache.save(cacheFile, fingerprint, pages);
+
+            ISet<Webpage> loaded = CorpusCache.load(cacheFile, fingerprint);
+            assertEquals(pages.size(), loaded.size());
+            for (Webpage page : loaded) {
+                assertTrue(pages.contains(page));
+                for (Webpage original : pages) {
+                    if (original.equals(page)) {
+                        assertSamePage(original, page);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testStaleFingerprintIsIgnored() throws IOException {
+        Path cacheFile = Files.createTempFile("corpus", ".cache");
+        try {
+            CorpusCache.save(cacheFile, new CorpusFingerprint(3, 100, 12345, 42), buildPages());
+            assertNull(CorpusCache.load(cacheFile, new CorpusFingerprint(4, 100, 12345, 42)));
+        } finally {
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testCorruptCacheIsIgnored() throws IOException {
+        Path cacheFile = Files.createTempFile("corpus", ".cache");
+        try {
+            Files.write(cacheFile, new byte[] {1, 2, 3});
+            assertNull(CorpusCache.load(cacheFile, new CorpusFingerprint(0, 0, 0, 0)));
+            assertNull(CorpusCache.load(cacheFile.resolveSibling("missing.cache"), new CorpusFingerprint(0, 0, 0, 0)));
+        } finally {
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testCorruptLengthsAreIgnored() throws IOException {
+        Path cacheFile = Files.createTempFile("corpus", ".cache");
+        try {
+            CorpusFingerprint fingerprint = new CorpusFingerprint(3, 100, 12345, 42);
+            // The length of the word table, written as a negative number and as a huge one.
+            byte[][] badLengths = {
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F},
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+            };
+            for (byte[] badLength : badLengths) {
+                CorpusCache.save(cacheFile, fingerprint, buildPages());
+                byte[] bytes = Files.readAllBytes(cacheFile);
+                int tablesOffset = (int) ByteBuffer.wrap(bytes).getLong(bytes.length - Long.BYTES);
+                System.arraycopy(badLength, 0, bytes, tablesOffset, badLength.length);
+                Files.write(cacheFile, bytes);
+                assertNull(CorpusCache.load(cacheFile, fingerprint));
+            }
+        } finally {
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+}
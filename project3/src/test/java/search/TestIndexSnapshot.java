@@ -0,0 +1,195 @@
+package search;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static search.SamplePages.buildPage;
+import static search.SamplePages.buildPages;
+
+import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import misc.BaseTest;
+import org.junit.Test;
+import search.analyzers.PageRankAnalyzer;
+import search.analyzers.TfIdfAnalyzer;
+import search.misc.CorpusFingerprint;
+import search.misc.IndexSnapshot;
+import search.misc.exceptions.DataExtractionException;
+import search.models.DocumentIdRegistry;
+import search.models.Webpage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class TestIndexSnapshot extends BaseTest {
+    private IList<String> query(String words) {
+        IList<String> output = new DoubleLinkedList<>();
+        for (String word : words.split(" ")) {
+            output.add(word);
+        }
+        return output;
+    }
+
+    private IndexSnapshot buildSnapshot(ISet<Webpage> pages) {
+        DocumentIdRegistry registry = DocumentIdRegistry.of(pages);
+        return new IndexSnapshot(
+                Paths.get("data", "example"),
+                new CorpusFingerprint(3, 100, 12345, 42),
+                registry,
+                new TfIdfAnalyzer(pages, registry),
+                new PageRankAnalyzer(pages, registry, 0.85, 0.00001, 100));
+    }
+
+    @Test(timeout=SECOND)
+    public void testRoundTrip() throws IOException {
+        Path snapshotFile = Files.createTempFile("index", ".snapshot");
+        try {
+            ISet<Webpage> pages = buildPages();
+            IndexSnapshot original = buildSnapshot(pages);
+            original.write(snapshotFile);
+
+            IndexSnapshot.Header header = IndexSnapshot.readHeader(snapshotFile);
+            assertEquals(Paths.get("data", "example").toAbsolutePath().normalize(), header.getCorpusRoot());
+            assertEquals(new CorpusFingerprint(3, 100, 12345, 42), header.getFingerprint());
+
+            IndexSnapshot loaded = IndexSnapshot.read(snapshotFile);
+            assertEquals(original.getRegistry().size(), loaded.getRegistry().size());
+            for (Webpage page : pages) {
+                URI uri = page.getUri();
+                int id = original.getRegistry().getId(uri);
+                assertEquals(id, loaded.getRegistry().getId(uri));
+                assertEquals(page.getSummary(), loaded.getRegistry().getSummary(id));
+                assertEquals(
+                        original.getPageRankAnalyzer().computePageRank(uri),
+                        loaded.getPageRankAnalyzer().computePageRank(uri),
+                        0.0);
+                for (String words : new String[] {"cat", "the dog", "mat cat cat", "unicorn"}) {
+                    assertEquals(
+                            original.getTfIdfAnalyzer().computeRelevance(query(words), uri),
+                            loaded.getTfIdfAnalyzer().computeRelevance(query(words), uri),
+                            0.0);
+                }
+            }
+            assertEquals(
+                    original.getTfIdfAnalyzer().computeRelevances(query("cat")).size(),
+                    loaded.getTfIdfAnalyzer().computeRelevances(query("cat")).size());
+
+            // The links are kept too, so the loaded page ranks can still be updated.
+            ISet<URI> removed = new ChainedHashSet<>();
+            removed.add(URI.create("http://example.com/c"));
+            original.getPageRankAnalyzer().removePages(removed);
+            loaded.getPageRankAnalyzer().removePages(removed);
+            for (Webpage page : pages) {
+                assertEquals(
+                        original.getPageRankAnalyzer().computePageRank(page.getUri()),
+                        loaded.getPageRankAnalyzer().computePageRank(page.getUri()),
+                        0.0);
+            }
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testRemovedPagesStayRemoved() throws IOException {
+        Path snapshotFile = Files.createTempFile("index", ".snapshot");
+        try {
+            IndexSnapshot original = buildSnapshot(buildPages());
+            URI removed = URI.create("http://example.com/c");
+            ISet<URI> removedSet = new ChainedHashSet<>();
+            removedSet.add(removed);
+            original.getTfIdfAnalyzer().removeDocument(removed);
+            original.getPageRankAnalyzer().removePages(removedSet);
+            original.getRegistry().remove(removed);
+            original.write(snapshotFile);
+
+            IndexSnapshot loaded = IndexSnapshot.read(snapshotFile);
+            int id = loaded.getRegistry().getId(removed);
+            assertFalse(loaded.getRegistry().contains(id));
+            assertEquals(2, loaded.getRegistry().numActivePages());
+            assertEquals(0.0, loaded.getPageRankAnalyzer().computePageRank(id), 0.0);
+            assertEquals(1, loaded.getTfIdfAnalyzer().computeRelevances(query("cat")).size());
+
+            // A removed page can come back, under the same id.
+            Webpage page = buildPage("http://example.com/c", "cat cat");
+            loaded.getTfIdfAnalyzer().addDocument(page);
+            assertEquals(id, loaded.getRegistry().getId(removed));
+            assertTrue(loaded.getRegistry().contains(id));
+            assertEquals(2, loaded.getTfIdfAnalyzer().computeRelevances(query("cat")).size());
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testEmptiedIndexRoundTrip() throws IOException {
+        Path snapshotFile = Files.createTempFile("index", ".snapshot");
+        try {
+            // More distinct words than the analyzer has room for when it's first built.
+            StringBuilder words = new StringBuilder("cat");
+            for (int i = 0; i < 100; i++) {
+                words.append(" word").append(i);
+            }
+            ISet<Webpage> pages = buildPages();
+            pages.add(buildPage("http://example.com/d", words.toString()));
+            IndexSnapshot original = buildSnapshot(pages);
+
+            ISet<URI> removed = new ChainedHashSet<>();
+            for (Webpage page : pages) {
+                removed.add(page.getUri());
+                original.getTfIdfAnalyzer().removeDocument(page.getUri());
+                original.getRegistry().remove(page.getUri());
+            }
+            original.getPageRankAnalyzer().removePages(removed);
+            original.write(snapshotFile);
+
+            IndexSnapshot loaded = IndexSnapshot.read(snapshotFile);
+            assertEquals(0, loaded.getRegistry().numActivePages());
+            assertEquals(0, loaded.getTfIdfAnalyzer().computeRelevances(query("cat word99")).size());
+
+            Webpage page = buildPage("http://example.com/d", "word99 word99 dog");
+            loaded.getTfIdfAnalyzer().addDocument(page);
+            assertEquals(1, loaded.getTfIdfAnalyzer().computeRelevances(query("cat word99")).size());
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testDamagedSnapshotIsRejected() throws IOException {
+        Path snapshotFile = Files.createTempFile("index", ".snapshot");
+        try {
+            buildSnapshot(buildPages()).write(snapshotFile);
+            byte[] bytes = Files.readAllBytes(snapshotFile);
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(snapshotFile, bytes);
+
+            try {
+                IndexSnapshot.read(snapshotFile);
+                fail("Expected DataExtractionException");
+            } catch (DataExtractionException ex) {
+                // do nothing: this is ok
+            }
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testOtherFilesHaveNoHeader() throws IOException {
+        Path snapshotFile = Files.createTempFile("index", ".snapshot");
+        try {
+            Files.write(snapshotFile, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+            assertNull(IndexSnapshot.readHeader(snapshotFile));
+            assertNull(IndexSnapshot.readHeader(snapshotFile.resolveSibling("missing.snapshot")));
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package search;
+
+import misc.BaseTest;
+import org.junit.Test;
+import search.misc.Json;
+
+public class TestJson extends BaseTest {
+    @Test(timeout=SECOND)
+    public void testQuotePlainText() {
+        assertEquals("\"hello world\"", Json.quote("hello world"));
+        assertEquals("\"\"", Json.quote(""));
+        assertEquals("null", Json.quote(null));
+        assertEquals("\"caf\u00e9 \u65e5\u672c\"", Json.quote("caf\u00e9 \u65e5\u672c"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testQuoteEscapes() {
+        assertEquals("\"say \\\"hi\\\" \\\\ bye\"", Json.quote("say \"hi\" \\ bye"));
+        assertEquals("\"a\\nb\\rc\\td\"", Json.quote("a\nb\rc\td"));
+        assertEquals("\"\\u0000\\u001f\"", Json.quote("\u0000\u001f"));
+        assertEquals("\"\\u003c/script>\"", Json.quote("</script>"));
+        assertEquals("\"\\u2028\\u2029\"", Json.quote("\u2028\u2029"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testNumber() {
+        assertEquals("0.25", Json.number(0.25));
+        assertEquals("null", Json.number(Double.NaN));
+        assertEquals("null", Json.number(Double.POSITIVE_INFINITY));
+        double awkward = 0.1 + 0.2;
+        assertEquals(awkward, Double.parseDouble(Json.number(awkward)), 0.0);
+    }
+}
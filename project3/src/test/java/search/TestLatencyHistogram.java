@@ -0,0 +1,53 @@
+package search;
+
+import static org.junit.Assert.fail;
+
+import misc.BaseTest;
+import org.junit.Test;
+import search.misc.LatencyHistogram;
+
+public class TestLatencyHistogram extends BaseTest {
+    @Test(timeout=SECOND)
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.count());
+        assertEquals(0.0, histogram.percentile(0.5), 0.0);
+    }
+
+    @Test(timeout=SECOND)
+    public void testPercentilesAreCloseUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1ms, 2ms, ..., 100ms
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1000000L);
+        }
+        assertEquals(100L, histogram.count());
+
+        double median = histogram.percentile(0.5);
+        double p99 = histogram.percentile(0.99);
+        double max = histogram.percentile(1.0);
+        assertEquals(50.0 * 1.045, median, 50.0 * 0.045);
+        assertEquals(99.0 * 1.045, p99, 99.0 * 0.045);
+        assertEquals(100.0 * 1.045, max, 100.0 * 0.045);
+    }
+
+    @Test(timeout=SECOND)
+    public void testExtremeLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0.001, histogram.percentile(0.5), 0.0);
+        assertEquals(Math.pow(2.0, 32) / 1000.0, histogram.percentile(1.0), 0.0);
+    }
+
+    @Test(timeout=SECOND)
+    public void testInvalidFraction() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        try {
+            histogram.percentile(1.5);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package search;
+
+import static org.junit.Assert.fail;
+
+import misc.BaseTest;
+import org.junit.Test;
+import search.misc.LruCache;
+
+public class TestLruCache extends BaseTest {
+    @Test(timeout=SECOND)
+    public void testGetAndPut() {
+        LruCache<String, Integer> cache = new LruCache<>(3);
+        assertEquals(null, cache.get("a"));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertEquals(1, cache.get("a"));
+        assertEquals(2, cache.get("b"));
+        cache.put("a", 10);
+        assertEquals(10, cache.get("a"));
+        assertEquals(2, cache.size());
+        assertEquals(3L, cache.getHits());
+        assertEquals(1L, cache.getMisses());
+    }
+
+    @Test(timeout=SECOND)
+    public void testEvictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<>(3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        // Using 'a' makes 'b' the least recently used entry.
+        cache.get("a");
+        cache.put("d", 4);
+        assertEquals(3, cache.size());
+        assertEquals(null, cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(4, cache.get("d"));
+
+        // Replacing a value counts as using it.
+        cache.put("a", 5);
+        cache.put("e", 6);
+        assertEquals(null, cache.get("c"));
+        assertEquals(5, cache.get("a"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testClear() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.get("a");
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(null, cache.get("a"));
+        assertEquals(1L, cache.getHits());
+        assertEquals(1L, cache.getMisses());
+
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.put("d", 4);
+        assertEquals(2, cache.size());
+        assertEquals(null, cache.get("b"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testZeroCapacityStoresNothing() {
+        LruCache<String, Integer> cache = new LruCache<>(0);
+        cache.put("a", 1);
+        assertEquals(0, cache.size());
+        assertEquals(null, cache.get("a"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testNegativeCapacity() {
+        try {
+            new LruCache<String, Integer>(-1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+    }
+}
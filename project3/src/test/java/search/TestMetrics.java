@@ -0,0 +1,85 @@
+package search;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import misc.BaseTest;
+import org.junit.Test;
+import search.misc.LatencyHistogram;
+import search.misc.Metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TestMetrics extends BaseTest {
+    @Test(timeout=SECOND)
+    public void testPrometheusText() {
+        Metrics metrics = new Metrics();
+        metrics.counter("requests_total", "Requests.").addAndGet(3);
+        metrics.gauge("pages", "Pages.", () -> 12.0);
+        metrics.counter("hits_total", "Hits.", () -> 7.0);
+        LatencyHistogram timer = metrics.timer("query_seconds", "Query time.");
+        timer.record(2000000000L);
+
+        assertEquals(
+                "# HELP requests_total Requests.\n"
+                        + "# TYPE requests_total counter\n"
+                        + "requests_total 3\n"
+                        + "# HELP pages Pages.\n"
+                        + "# TYPE pages gauge\n"
+                        + "pages 12.0\n"
+                        + "# HELP hits_total Hits.\n"
+                        + "# TYPE hits_total counter\n"
+                        + "hits_total 7.0\n"
+                        + "# HELP query_seconds Query time.\n"
+                        + "# TYPE query_seconds summary\n",
+                metrics.toPrometheusText().substring(0, metrics.toPrometheusText().indexOf("query_seconds{")));
+
+        String text = metrics.toPrometheusText();
+        assertTrue(text.contains("query_seconds{quantile=\"0.5\"} 2."));
+        assertTrue(text.contains("query_seconds{quantile=\"0.99\"} 2."));
+        assertTrue(text.endsWith("query_seconds_sum 2.0\nquery_seconds_count 1\n"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testMetricsAreShared() {
+        Metrics metrics = new Metrics();
+        AtomicLong counter = metrics.counter("requests_total", "Requests.");
+        assertTrue(counter == metrics.counter("requests_total", "Requests."));
+        LatencyHistogram timer = metrics.timer("query_seconds", "Query time.");
+        assertTrue(timer == metrics.timer("query_seconds", "Query time."));
+
+        // Registering a function again replaces the old one.
+        metrics.gauge("pages", "Pages.", () -> 1.0);
+        metrics.gauge("pages", "Pages.", () -> 2.0);
+        assertTrue(metrics.toPrometheusText().contains("\npages 2.0\n"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testNameClashes() {
+        Metrics metrics = new Metrics();
+        metrics.counter("requests_total", "Requests.");
+        try {
+            metrics.counter("requests_total", "Requests.", () -> 1.0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+        try {
+            metrics.timer("requests_total", "Requests.");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testInvalidName() {
+        Metrics metrics = new Metrics();
+        try {
+            metrics.counter("requests-total", "Requests.");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // do nothing: this is ok
+        }
+    }
+}
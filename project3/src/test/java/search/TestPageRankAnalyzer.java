@@ -1,15 +1,20 @@
 package search;
 
+import static org.junit.Assert.assertTrue;
+
 import datastructures.concrete.ChainedHashSet;
 import datastructures.concrete.DoubleLinkedList;
 import datastructures.interfaces.IList;
 import datastructures.interfaces.ISet;
 import misc.BaseTest;
 import org.junit.Test;
+import search.analyzers.ConvergenceStrategy;
 import search.analyzers.PageRankAnalyzer;
+import search.models.DocumentIdRegistry;
 import search.models.Webpage;
 
 import java.net.URI;
+import java.util.Random;
 
 public class TestPageRankAnalyzer extends BaseTest {
     // We say two floating point numbers are equal if they're within
@@ -92,4 +97,158 @@ public class TestPageRankAnalyzer extends BaseTest {
         assertEquals(0.05244, analyzer.computePageRank(pageEUri), DELTA);
     }
 
+    @Test(timeout=SECOND)
+    public void testIgnoresDuplicateSelfAndExternalLinks() {
+        URI pageAUri = URI.create("http://example.com/page-a.html");
+        URI pageBUri = URI.create("http://example.com/page-b.html");
+        URI pageCUri = URI.create("http://example.com/page-c.html");
+        URI pageDUri = URI.create("http://example.com/page-d.html");
+        URI externalUri = URI.create("http://example.org/elsewhere.html");
+
+        // The same graph as testSpecExample1, plus links that shouldn't count.
+        ISet<Webpage> pages = new ChainedHashSet<>();
+        pages.add(this.buildPage(pageAUri, new URI[] {pageBUri, pageCUri, pageAUri, pageDUri, pageBUri}));
+        pages.add(this.buildPage(pageBUri, new URI[] {pageAUri, externalUri}));
+        pages.add(this.buildPage(pageCUri, new URI[] {pageCUri, pageAUri, pageAUri}));
+        pages.add(this.buildPage(pageDUri, new URI[] {pageAUri}));
+
+        PageRankAnalyzer analyzer = new PageRankAnalyzer(pages, 0.85, 0.00001, 100);
+
+        assertEquals(0.47973, analyzer.computePageRank(pageAUri), DELTA);
+        assertEquals(0.17342, analyzer.computePageRank(pageBUri), DELTA);
+        assertEquals(0.17342, analyzer.computePageRank(pageCUri), DELTA);
+        assertEquals(0.17342, analyzer.computePageRank(pageDUri), DELTA);
+    }
+
+    private ISet<Webpage> buildRandomPages(int numPages, long seed) {
+        Random rand = new Random(seed);
+        ISet<Webpage> pages = new ChainedHashSet<>();
+        for (int i = 0; i < numPages; i++) {
+            // Roughly one page in ten has no outgoing links at all.
+            URI[] links = new URI[rand.nextInt(10) == 0 ? 0 : 1 + rand.nextInt(8)];
+            for (int j = 0; j < links.length; j++) {
+                links[j] = URI.create("http://example.com/page-" + rand.nextInt(numPages) + ".html");
+            }
+            pages.add(this.buildPage(URI.create("http://example.com/page-" + i + ".html"), links));
+        }
+        return pages;
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testThreadCountDoesNotChangeRanks() {
+        ISet<Webpage> pages = this.buildRandomPages(10000, 373);
+        DocumentIdRegistry registry = DocumentIdRegistry.of(pages);
+
+        PageRankAnalyzer sequential = new PageRankAnalyzer(pages, registry, 0.85, 0.0000001, 100, 1);
+        PageRankAnalyzer parallel = new PageRankAnalyzer(pages, registry, 0.85, 0.0000001, 100, 4);
+
+        double total = 0.0;
+        for (int id = 0; id < registry.size(); id++) {
+            assertEquals(sequential.computePageRank(id), parallel.computePageRank(id), 0.0);
+            total += sequential.computePageRank(id);
+        }
+        assertEquals(1.0, total, DELTA);
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testAddAndRemovePagesMatchesFullRecompute() {
+        ISet<Webpage> pages = this.buildRandomPages(3000, 373);
+        ISet<Webpage> initial = new ChainedHashSet<>();
+        ISet<Webpage> added = new ChainedHashSet<>();
+        ISet<URI> removed = new ChainedHashSet<>();
+        ISet<Webpage> remaining = new ChainedHashSet<>();
+        for (Webpage page : pages) {
+            int number = Integer.parseInt(page.getUri().getPath().replaceAll("[^0-9]", ""));
+            if (number % 100 == 1) {
+                added.add(page);
+            } else {
+                initial.add(page);
+            }
+            if (number % 100 == 2) {
+                removed.add(page.getUri());
+            } else {
+                remaining.add(page);
+            }
+        }
+
+        PageRankAnalyzer incremental = new PageRankAnalyzer(initial, 0.85, 0.00000001, 200);
+        int fullIterations = incremental.getIterationCount();
+        incremental.addPages(added);
+        assertTrue(incremental.getIterationCount() < fullIterations);
+        incremental.removePages(removed);
+        assertTrue(incremental.getIterationCount() < fullIterations);
+
+        PageRankAnalyzer expected = new PageRankAnalyzer(remaining, 0.85, 0.00000001, 200);
+        for (Webpage page : remaining) {
+            assertEquals(
+                    expected.computePageRank(page.getUri()),
+                    incremental.computePageRank(page.getUri()),
+                    0.000001);
+        }
+        for (URI uri : removed) {
+            assertEquals(0.0, incremental.computePageRank(uri), 0.0);
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testEveryStrategyFindsTheSameRanks() {
+        ISet<Webpage> pages = this.buildRandomPages(5000, 373);
+        DocumentIdRegistry registry = DocumentIdRegistry.of(pages);
+
+        PageRankAnalyzer expected = new PageRankAnalyzer(
+                pages, registry, 0.85, 0.000000001, 500, 1, ConvergenceStrategy.JACOBI);
+        for (ConvergenceStrategy strategy : ConvergenceStrategy.values()) {
+            PageRankAnalyzer analyzer = new PageRankAnalyzer(
+                    pages, registry, 0.85, 0.000000001, 500, 2, strategy);
+            double total = 0.0;
+            for (int id = 0; id < registry.size(); id++) {
+                assertEquals(expected.computePageRank(id), analyzer.computePageRank(id), 0.0000001);
+                total += analyzer.computePageRank(id);
+            }
+            assertEquals(1.0, total, DELTA);
+        }
+    }
+
+    /**
+     * Builds two clusters of pages that link to random pages within their own cluster,
+     * plus a handful of links between the clusters. Power iteration only slowly moves
+     * rank from one cluster to the other.
+     */
+    private ISet<Webpage> buildClusteredPages(int numPages, long seed) {
+        Random rand = new Random(seed);
+        ISet<Webpage> pages = new ChainedHashSet<>();
+        int half = numPages / 2;
+        for (int i = 0; i < numPages; i++) {
+            int cluster = i < half ? 0 : half;
+            URI[] links = new URI[3];
+            for (int j = 0; j < links.length; j++) {
+                links[j] = URI.create("http://example.com/page-" + (cluster + rand.nextInt(half)) + ".html");
+            }
+            if (rand.nextInt(200) == 0) {
+                links[0] = URI.create("http://example.com/page-" + (half - cluster + rand.nextInt(half)) + ".html");
+            }
+            pages.add(this.buildPage(URI.create("http://example.com/page-" + i + ".html"), links));
+        }
+        return pages;
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testAcceleratedStrategiesNeedFewerIterations() {
+        ISet<Webpage> pages = this.buildClusteredPages(2000, 1);
+        DocumentIdRegistry registry = DocumentIdRegistry.of(pages);
+
+        PageRankAnalyzer jacobi = new PageRankAnalyzer(
+                pages, registry, 0.95, 0.0000000001, 1000, 1, ConvergenceStrategy.JACOBI);
+        PageRankAnalyzer gaussSeidel = new PageRankAnalyzer(
+                pages, registry, 0.95, 0.0000000001, 1000, 1, ConvergenceStrategy.GAUSS_SEIDEL);
+        PageRankAnalyzer aitken = new PageRankAnalyzer(
+                pages, registry, 0.95, 0.0000000001, 1000, 1, ConvergenceStrategy.AITKEN);
+
+        assertTrue(gaussSeidel.getIterationCount() < jacobi.getIterationCount());
+        assertTrue(aitken.getIterationCount() < jacobi.getIterationCount());
+        for (int id = 0; id < registry.size(); id++) {
+            assertEquals(jacobi.computePageRank(id), gaussSeidel.computePageRank(id), 0.00000001);
+            assertEquals(jacobi.computePageRank(id), aitken.computePageRank(id), 0.00000001);
+        }
+    }
 }
@@ -0,0 +1,129 @@
+package search;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import misc.BaseTest;
+import org.junit.Test;
+import search.analyzers.PostingList;
+
+import java.util.Random;
+
+public class TestPostingList extends BaseTest {
+    /**
+     * Checks that the list contains exactly the documents with a non-zero count in
+     * 'counts', in increasing id order.
+     */
+    private void assertContents(int[] counts, PostingList list) {
+        PostingList.Cursor cursor = list.cursor();
+        int size = 0;
+        for (int documentId = 0; documentId < counts.length; documentId++) {
+            if (counts[documentId] != 0) {
+                assertEquals(documentId, cursor.documentId());
+                assertEquals(counts[documentId], cursor.count());
+                cursor.next();
+                size++;
+            }
+        }
+        assertEquals(Integer.MAX_VALUE, cursor.documentId());
+        assertEquals(size, list.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testEmptyList() {
+        PostingList list = new PostingList();
+        PostingList.Cursor cursor = list.cursor();
+        assertEquals(Integer.MAX_VALUE, cursor.documentId());
+        cursor.seek(5);
+        assertEquals(Integer.MAX_VALUE, cursor.documentId());
+        assertFalse(list.remove(5));
+        assertEquals(0, list.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testAppendAndScan() {
+        PostingList list = new PostingList();
+        int[] counts = new int[100000];
+        Random rand = new Random(12);
+        for (int documentId = 0; documentId < counts.length; documentId += 1 + rand.nextInt(300)) {
+            counts[documentId] = 1 + rand.nextInt(rand.nextBoolean() ? 3 : 100000);
+            list.add(documentId, counts[documentId]);
+        }
+        this.assertContents(counts, list);
+    }
+
+    @Test(timeout=SECOND)
+    public void testSeekMatchesScan() {
+        PostingList list = new PostingList();
+        int[] counts = new int[50000];
+        Random rand = new Random(8);
+        for (int documentId = 0; documentId < counts.length; documentId += 1 + rand.nextInt(20)) {
+            counts[documentId] = 1 + rand.nextInt(5);
+            list.add(documentId, counts[documentId]);
+        }
+
+        for (int trial = 0; trial < 100; trial++) {
+            PostingList.Cursor cursor = list.cursor();
+            int target = 0;
+            while (target < counts.length) {
+                // Mix short steps within a block with long jumps across many blocks.
+                target += rand.nextBoolean() ? rand.nextInt(10) : rand.nextInt(5000);
+                cursor.seek(target);
+                int expected = target;
+                while (expected < counts.length && counts[expected] == 0) {
+                    expected++;
+                }
+                if (expected < counts.length) {
+                    assertEquals(expected, cursor.documentId());
+                    assertEquals(counts[expected], cursor.count());
+                    target = expected;
+                } else {
+                    assertEquals(Integer.MAX_VALUE, cursor.documentId());
+                }
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testSeekBackwardsDoesNothing() {
+        PostingList list = new PostingList();
+        for (int documentId = 0; documentId < 1000; documentId += 3) {
+            list.add(documentId, 1);
+        }
+        PostingList.Cursor cursor = list.cursor();
+        cursor.seek(500);
+        assertEquals(501, cursor.documentId());
+        cursor.seek(10);
+        assertEquals(501, cursor.documentId());
+        cursor.seek(1000);
+        assertEquals(Integer.MAX_VALUE, cursor.documentId());
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testAddAndRemoveInAnyOrder() {
+        PostingList list = new PostingList();
+        int[] counts = new int[3000];
+        Random rand = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            int documentId = rand.nextInt(counts.length);
+            if (rand.nextInt(3) == 0) {
+                assertEquals(counts[documentId] != 0, list.remove(documentId));
+                counts[documentId] = 0;
+            } else {
+                counts[documentId] = 1 + rand.nextInt(1000);
+                list.add(documentId, counts[documentId]);
+            }
+        }
+        this.assertContents(counts, list);
+    }
+
+    @Test(timeout=SECOND)
+    public void testDenseListIsSmall() {
+        PostingList list = new PostingList();
+        for (int documentId = 0; documentId < 10000; documentId++) {
+            list.add(documentId, 1 + documentId % 5);
+        }
+        // One byte for each gap and count, plus the skip entries.
+        assertTrue(list.encodedSize() <= 10000 * 2 + (10000 / PostingList.BLOCK_SIZE + 1) * 8);
+    }
+}
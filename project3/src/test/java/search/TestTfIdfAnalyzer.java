@@ -1,5 +1,7 @@
 package search;
 
+import static org.junit.Assert.fail;
+
 import datastructures.concrete.ChainedHashSet;
 import datastructures.concrete.DoubleLinkedList;
 import datastructures.concrete.KVPair;
@@ -8,8 +10,12 @@ import datastructures.interfaces.IDictionary;
 import datastructures.interfaces.IList;
 import datastructures.interfaces.ISet;
 import misc.BaseTest;
+import misc.exceptions.NoSuchKeyException;
 import org.junit.Test;
+import search.analyzers.PreparedQuery;
+import search.analyzers.ScoreAccumulator;
 import search.analyzers.TfIdfAnalyzer;
+import search.models.DocumentIdRegistry;
 import search.models.Webpage;
 
 import java.net.URI;
@@ -28,6 +34,10 @@ public class TestTfIdfAnalyzer extends BaseTest {
     }
 
     private TfIdfAnalyzer makeExampleAnalyzer() {
+        return new TfIdfAnalyzer(this.makeExampleDocuments());
+    }
+
+    private ISet<Webpage> makeExampleDocuments() {
         Webpage documentA = new Webpage(
                 URI.create("http://example.com/fake-page-a.html"),
                 new DoubleLinkedList<>(),
@@ -54,7 +64,7 @@ public class TestTfIdfAnalyzer extends BaseTest {
         documents.add(documentB);
         documents.add(documentC);
 
-        return new TfIdfAnalyzer(documents);
+        return documents;
     }
 
     private void compareVectors(IDictionary<String, Double> expected, IDictionary<String, Double> actual) {
@@ -135,4 +145,118 @@ public class TestTfIdfAnalyzer extends BaseTest {
                 analyzer.computeRelevance(query, URI.create("http://example.com/fake-page-c.html")),
                 DELTA);
     }
+
+    @Test(timeout=SECOND)
+    public void testPreparedQueryMatchesUnpreparedQuery() {
+        DocumentIdRegistry registry = DocumentIdRegistry.of(this.makeExampleDocuments());
+        TfIdfAnalyzer analyzer = new TfIdfAnalyzer(this.makeExampleDocuments(), registry);
+
+        for (String rawQuery : new String[] {"the 1 cat", "dog dog lazy", "unicorn", "cat unicorn cat"}) {
+            IList<String> query = strToIList(rawQuery);
+            PreparedQuery prepared = analyzer.prepare(query);
+            assertEquals(query.size(), prepared.size());
+            for (int id = 0; id < registry.size(); id++) {
+                assertEquals(
+                        analyzer.computeRelevance(query, registry.getUri(id)),
+                        analyzer.computeRelevance(prepared, id),
+                        0.0);
+            }
+        }
+
+        // Once the index changes, so do the IDF scores, so old queries can't be used.
+        PreparedQuery stale = analyzer.prepare(strToIList("the 1 cat"));
+        analyzer.removeDocument(URI.create("http://example.com/fake-page-a.html"));
+        try {
+            analyzer.computeRelevances(stale);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // do nothing: this is ok
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testInvertedIndexMatchesFullScan() {
+        DocumentIdRegistry registry = new DocumentIdRegistry();
+        URI[] uris = new URI[] {
+            URI.create("http://example.com/fake-page-a.html"),
+            URI.create("http://example.com/fake-page-b.html"),
+            URI.create("http://example.com/fake-page-c.html"),
+        };
+        ISet<Webpage> documents = this.makeExampleDocuments();
+        for (Webpage page : documents) {
+            registry.register(page);
+        }
+        TfIdfAnalyzer analyzer = new TfIdfAnalyzer(documents, registry);
+
+        String[] queries = new String[] {"the 1 cat", "dog dog lazy", "the", "unicorn", "hot cat mouse unicorn"};
+        for (String rawQuery : queries) {
+            IList<String> query = strToIList(rawQuery);
+            ScoreAccumulator relevances = analyzer.computeRelevances(query);
+            for (URI uri : uris) {
+                double expected = analyzer.computeRelevance(query, uri);
+                assertEquals(expected, relevances.getScore(registry.getId(uri)), DELTA);
+            }
+        }
+
+        // Documents that share no words with the query should not be visited at all.
+        ScoreAccumulator relevances = analyzer.computeRelevances(strToIList("mouse"));
+        assertEquals(1, relevances.size());
+        assertEquals(registry.getId(uris[0]), relevances.getDocumentId(0));
+    }
+
+    @Test(timeout=SECOND)
+    public void testAddAndRemoveDocumentsMatchesFullBuild() {
+        ISet<Webpage> documents = this.makeExampleDocuments();
+        Webpage documentD = new Webpage(
+                URI.create("http://example.com/fake-page-d.html"),
+                new DoubleLinkedList<>(),
+                strToIList("the cat sat on the dog"),
+                "Document D title",
+                "Document D blurb");
+        URI documentBUri = URI.create("http://example.com/fake-page-b.html");
+
+        // Start with only A and B, then add C and D and remove B.
+        ISet<Webpage> initial = new ChainedHashSet<>();
+        ISet<Webpage> remaining = new ChainedHashSet<>();
+        for (Webpage page : documents) {
+            if (!page.getUri().getPath().endsWith("c.html")) {
+                initial.add(page);
+            }
+            if (!page.getUri().equals(documentBUri)) {
+                remaining.add(page);
+            }
+        }
+        remaining.add(documentD);
+
+        TfIdfAnalyzer incremental = new TfIdfAnalyzer(initial, DocumentIdRegistry.of(initial));
+        IList<String> query = strToIList("the cat dog");
+        incremental.computeRelevances(query);
+        for (Webpage page : documents) {
+            incremental.addDocument(page);
+        }
+        incremental.addDocument(documentD);
+        incremental.removeDocument(documentBUri);
+
+        TfIdfAnalyzer expected = new TfIdfAnalyzer(remaining);
+        IDictionary<URI, IDictionary<String, Double>> expectedVectors = expected.getDocumentTfIdfVectors();
+        IDictionary<URI, IDictionary<String, Double>> actualVectors = incremental.getDocumentTfIdfVectors();
+        assertEquals(expectedVectors.size(), actualVectors.size());
+        for (Webpage page : remaining) {
+            compareVectors(expectedVectors.get(page.getUri()), actualVectors.get(page.getUri()));
+            assertEquals(
+                    expected.computeRelevance(query, page.getUri()),
+                    incremental.computeRelevance(query, page.getUri()),
+                    DELTA);
+        }
+
+        // The removed document no longer matches anything.
+        assertEquals(0.0, incremental.computeRelevance(query, documentBUri), DELTA);
+        assertEquals(0, incremental.computeRelevances(strToIList("fox")).size());
+        try {
+            incremental.removeDocument(documentBUri);
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // do nothing: this is ok
+        }
+    }
 }
@@ -0,0 +1,145 @@
+package search;
+
+import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleIntHeap;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import misc.BaseTest;
+import org.junit.Test;
+import search.analyzers.PageRankAnalyzer;
+import search.analyzers.PreparedQuery;
+import search.analyzers.ScoreAccumulator;
+import search.analyzers.TfIdfAnalyzer;
+import search.analyzers.TopKRetriever;
+import search.models.DocumentIdRegistry;
+import search.models.Webpage;
+
+import java.net.URI;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+public class TestTopKRetriever extends BaseTest {
+    private static final int VOCABULARY_SIZE = 300;
+
+    private static String randomWord(Random rand) {
+        // Picking uniformly on a log scale gives roughly a Zipf distribution, so some
+        // words are in almost every page and others in only a few.
+        return "word" + (int) Math.exp(rand.nextDouble() * Math.log(VOCABULARY_SIZE));
+    }
+
+    private ISet<Webpage> buildRandomPages(int numPages, long seed) {
+        Random rand = new Random(seed);
+        ISet<Webpage> pages = new ChainedHashSet<>();
+        for (int i = 0; i < numPages; i++) {
+            IList<String> words = new DoubleLinkedList<>();
+            int numWords = 1 + rand.nextInt(40);
+            for (int j = 0; j < numWords; j++) {
+                words.add(randomWord(rand));
+            }
+            IList<URI> links = new DoubleLinkedList<>();
+            int numLinks = rand.nextInt(5);
+            for (int j = 0; j < numLinks; j++) {
+                links.add(URI.create("http://example.com/page-" + rand.nextInt(numPages)));
+            }
+            pages.add(new Webpage(URI.create("http://example.com/page-" + i), links, words, "title", "blurb"));
+        }
+        return pages;
+    }
+
+    /**
+     * Finds the top k documents by scoring every document that shares a word with the
+     * query, then filling up with other documents in id order.
+     */
+    private DoubleIntHeap exhaustiveTopK(
+            TfIdfAnalyzer analyzer, DocumentIdRegistry registry, IntToDoubleFunction boosts,
+            PreparedQuery query, int k) {
+        DoubleIntHeap topK = new DoubleIntHeap(k);
+        ScoreAccumulator relevances = analyzer.computeRelevances(query);
+        for (int i = 0; i < relevances.size(); i++) {
+            int documentId = relevances.getDocumentId(i);
+            topK.offer(relevances.getScore(documentId) * boosts.applyAsDouble(documentId), documentId);
+        }
+        int missing = k - relevances.size();
+        for (int documentId = 0; documentId < registry.size() && missing > 0; documentId++) {
+            if (!relevances.contains(documentId) && registry.contains(documentId)) {
+                topK.offer(0.0, documentId);
+                missing--;
+            }
+        }
+        return topK;
+    }
+
+    private void assertSameHeaps(DoubleIntHeap expected, DoubleIntHeap actual) {
+        assertEquals(expected.size(), actual.size());
+        while (!expected.isEmpty()) {
+            assertEquals(expected.peekMinKey(), actual.peekMinKey(), 0.0);
+            assertEquals(expected.removeMin(), actual.removeMin());
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testMatchesExhaustiveScoring() {
+        ISet<Webpage> pages = this.buildRandomPages(2000, 373);
+        DocumentIdRegistry registry = DocumentIdRegistry.of(pages);
+        TfIdfAnalyzer analyzer = new TfIdfAnalyzer(pages, registry);
+        PageRankAnalyzer pageRanks = new PageRankAnalyzer(pages, registry, 0.85, 0.00001, 100);
+        IntToDoubleFunction boosts = documentId -> Math.sqrt(pageRanks.computePageRank(documentId));
+        TopKRetriever retriever = new TopKRetriever(analyzer, registry, boosts);
+
+        Random rand = new Random(42);
+        for (int trial = 0; trial < 200; trial++) {
+            IList<String> words = new DoubleLinkedList<>();
+            int numWords = 1 + rand.nextInt(5);
+            for (int j = 0; j < numWords; j++) {
+                words.add(rand.nextInt(10) == 0 ? "unicorn" : randomWord(rand));
+            }
+            PreparedQuery query = analyzer.prepare(words);
+            int k = new int[] {0, 1, 5, 20, 100}[rand.nextInt(5)];
+            assertSameHeaps(
+                    this.exhaustiveTopK(analyzer, registry, boosts, query, k),
+                    retriever.retrieve(query, k));
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testFillsUpWithUnmatchedDocuments() {
+        ISet<Webpage> pages = this.buildRandomPages(50, 1);
+        DocumentIdRegistry registry = DocumentIdRegistry.of(pages);
+        TfIdfAnalyzer analyzer = new TfIdfAnalyzer(pages, registry);
+        TopKRetriever retriever = new TopKRetriever(analyzer, registry, documentId -> 1.0);
+
+        IList<String> words = new DoubleLinkedList<>();
+        words.add("unicorn");
+        PreparedQuery query = analyzer.prepare(words);
+        assertSameHeaps(
+                this.exhaustiveTopK(analyzer, registry, documentId -> 1.0, query, 10),
+                retriever.retrieve(query, 10));
+        assertEquals(50, retriever.retrieve(query, 60).size());
+        assertEquals(50, retriever.retrieve(query, Integer.MAX_VALUE).size());
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testBoundsFollowIndexChanges() {
+        ISet<Webpage> pages = this.buildRandomPages(500, 7);
+        DocumentIdRegistry registry = DocumentIdRegistry.of(pages);
+        TfIdfAnalyzer analyzer = new TfIdfAnalyzer(pages, registry);
+        TopKRetriever retriever = new TopKRetriever(analyzer, registry, documentId -> 1.0);
+
+        IList<String> words = new DoubleLinkedList<>();
+        words.add("word1");
+        words.add("word20");
+        retriever.retrieve(analyzer.prepare(words), 5);
+
+        // A new page that's nothing but the query's words should go straight to the top.
+        IList<String> newWords = new DoubleLinkedList<>();
+        newWords.add("word20");
+        newWords.add("word20");
+        analyzer.addDocument(new Webpage(
+                URI.create("http://example.com/new"), new DoubleLinkedList<>(), newWords, "title", "blurb"));
+        PreparedQuery query = analyzer.prepare(words);
+        assertSameHeaps(
+                this.exhaustiveTopK(analyzer, registry, documentId -> 1.0, query, 5),
+                retriever.retrieve(query, 5));
+    }
+}